@@ -0,0 +1,59 @@
+package com.bci.benchmark;
+
+import com.bci.service.impl.RateLimitServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Costo del camino admitido del limitador: debe quedar muy por debajo de un microsegundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 1024;
+
+    private RateLimitServiceImpl rateLimitService;
+    private String[] ips;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        rateLimitService = new RateLimitServiceImpl(new SimpleMeterRegistry(), true,
+                1_000_000_000.0, 1_000_000, 1_000_000_000.0, 1_000_000, 100_000, Duration.ofMinutes(10));
+
+        ips = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            ips[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long singleClient() {
+        return rateLimitService.tryAcquireForIp(ips[0]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long manyClients() {
+        return rateLimitService.tryAcquireForIp(ips[next.getAndIncrement() & (CLIENTS - 1)]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bci.benchmark;
+
+import com.bci.model.PhoneRequestDTO;
+import com.bci.model.UserSignUpRequestDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SignUpValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserSignUpRequestDTO validRequest;
+    private UserSignUpRequestDTO invalidPasswordRequest;
+    private UserSignUpRequestDTO longPasswordRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        List<PhoneRequestDTO> phones = List.of(new PhoneRequestDTO("123456789", 1, "57"));
+        validRequest = new UserSignUpRequestDTO("Juan Pérez", "juan.perez@example.com", "Password1a2", phones);
+        invalidPasswordRequest = new UserSignUpRequestDTO("Juan Pérez", "juan.perez@example.com", "Password12", phones);
+        // Peor caso para los lookaheads: entrada larga que sólo falla al final
+        longPasswordRequest = new UserSignUpRequestDTO("Juan Pérez", "juan.perez@example.com",
+                "Aa1" + "b".repeat(200) + "2", phones);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserSignUpRequestDTO>> validRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserSignUpRequestDTO>> invalidPassword() {
+        return validator.validate(invalidPasswordRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserSignUpRequestDTO>> longPassword() {
+        return validator.validate(longPasswordRequest);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bci.benchmark;
+
+import com.bci.entity.Phone;
+import com.bci.entity.User;
+import com.bci.mapper.UserMapper;
+import com.bci.model.UserResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserMapperBenchmark {
+
+    @Param({"0", "1", "5"})
+    public int phoneCount;
+
+    private UserMapper userMapper;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapper();
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setName("Juan Pérez");
+        user.setEmail("juan.perez@example.com");
+        user.setCreated(LocalDateTime.now());
+        user.setLastLogin(LocalDateTime.now());
+        user.setToken("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJqdWFuIn0.signature");
+        user.setIsActive(true);
+
+        List<Phone> phones = new ArrayList<>();
+        for (int i = 0; i < phoneCount; i++) {
+            Phone phone = new Phone();
+            phone.setNumber("12345678" + i);
+            phone.setCitycode(1);
+            phone.setCountrycode("57");
+            phone.setUserId(user.getId());
+            phones.add(phone);
+        }
+        user.setPhones(phones);
+    }
+
+    @Benchmark
+    public UserResponseDTO toDTO() {
+        return userMapper.toDTO(user);
+    }
+}
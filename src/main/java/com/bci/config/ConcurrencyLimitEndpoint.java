@@ -0,0 +1,31 @@
+package com.bci.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/concurrencylimits} muestra, por clase de ruta, el límite actual, las solicitudes en curso
+ * y las rechazadas.
+ */
+@Component
+@Endpoint(id = "concurrencylimits")
+@RequiredArgsConstructor
+public class ConcurrencyLimitEndpoint {
+
+    private final ConcurrencyLimitWebFilter concurrencyLimitWebFilter;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> limits = new LinkedHashMap<>();
+        concurrencyLimitWebFilter.getLimiters().forEach((route, limiter) -> limits.put(route, Map.of(
+                "limit", limiter.getLimit(),
+                "in_flight", limiter.getInFlight(),
+                "rejected", limiter.getRejected())));
+        return limits;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bci.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Descarta carga a nivel de servidor: cada clase de ruta tiene su propio {@link AdaptiveConcurrencyLimiter}
+ * y las solicitudes que superan el límite reciben 503 de inmediato, en lugar de encolarse en Netty.
+ * Se ejecuta después del límite por IP y antes de la cadena de seguridad.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitWebFilter implements WebFilter {
+    public static final String BCRYPT_ROUTES = "bcrypt";
+    public static final String TOKEN_ROUTES = "token";
+
+    private static final byte[] OVERLOADED_BODY =
+            "{\"mensaje\":\"Server overloaded, please retry later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+
+    public ConcurrencyLimitWebFilter(MeterRegistry meterRegistry,
+                                     @Value("${load-shedding.enabled:true}") boolean enabled,
+                                     @Value("${load-shedding.bcrypt.initial-limit:20}") int bcryptInitialLimit,
+                                     @Value("${load-shedding.bcrypt.min-limit:4}") int bcryptMinLimit,
+                                     @Value("${load-shedding.bcrypt.max-limit:80}") int bcryptMaxLimit,
+                                     @Value("${load-shedding.token.initial-limit:200}") int tokenInitialLimit,
+                                     @Value("${load-shedding.token.min-limit:20}") int tokenMinLimit,
+                                     @Value("${load-shedding.token.max-limit:1000}") int tokenMaxLimit) {
+        this.enabled = enabled;
+        limiters.put(BCRYPT_ROUTES, new AdaptiveConcurrencyLimiter(bcryptInitialLimit, bcryptMinLimit, bcryptMaxLimit));
+        limiters.put(TOKEN_ROUTES, new AdaptiveConcurrencyLimiter(tokenInitialLimit, tokenMinLimit, tokenMaxLimit));
+
+        limiters.forEach((route, limiter) -> {
+            Gauge.builder("bci.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("bci.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("route", route)
+                    .register(meterRegistry);
+            FunctionCounter.builder("bci.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .tag("route", route)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AdaptiveConcurrencyLimiter limiter = enabled ? limiterFor(exchange.getRequest()) : null;
+        if (limiter == null) {
+            return chain.filter(exchange);
+        }
+
+        if (!limiter.tryAcquire()) {
+            log.warn("Concurrency limit {} reached, shedding {}", limiter.getLimit(), exchange.getRequest().getPath().value());
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(OVERLOADED_BODY)));
+        }
+
+        long start = System.nanoTime();
+        return Mono.defer(() -> chain.filter(exchange))
+                .doFinally(signal -> limiter.release(System.nanoTime() - start, signal != SignalType.CANCEL));
+    }
+
+    public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    /**
+     * Las rutas de streaming (registro masivo y exportación) quedan fuera: su duración depende del volumen
+     * de datos y distorsionaría la señal de latencia.
+     */
+    private AdaptiveConcurrencyLimiter limiterFor(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        if (!path.startsWith("/api/") || path.equals("/api/user/bulk-sign-up") || path.equals("/api/user/export")) {
+            return null;
+        }
+
+        boolean bcrypt = HttpMethod.POST.equals(request.getMethod())
+                && (path.equals("/api/login/authenticate") || path.equals("/api/user/sign-up"));
+        return limiters.get(bcrypt ? BCRYPT_ROUTES : TOKEN_ROUTES);
+    }
+}
@@ -1,11 +1,13 @@
 package com.bci.config;
 
+import com.bci.metrics.StageMetrics;
+import com.bci.model.TokenClaims;
 import com.bci.service.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
@@ -20,42 +22,56 @@ import java.util.Collections;
 @Slf4j
 public class JwtAuthenticationWebFilter implements WebFilter {
 
+    /**
+     * Atributo del exchange con los claims ya verificados, para que los controladores no vuelvan a validar el token.
+     */
+    public static final String VERIFIED_CLAIMS_ATTRIBUTE = "com.bci.config.JwtAuthenticationWebFilter.VERIFIED_CLAIMS";
+
     private final JwtService jwtService;
+    private final StageMetrics stageMetrics;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
 
-        if (isPublicPath(path)) {
+        if (isPublicPath(exchange.getRequest().getMethod(), path) || exchange.getAttribute(VERIFIED_CLAIMS_ATTRIBUTE) != null) {
             return chain.filter(exchange);
         }
 
+        long start = System.nanoTime();
+        String endpoint = StageMetrics.endpointOf(path);
         String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
             try {
-                String email = jwtService.validateTokenAndGetEmail(token);
+                TokenClaims claims = jwtService.validateToken(token);
 
-                if (email != null) {
-                    Authentication auth = new UsernamePasswordAuthenticationToken(
-                            email, null, Collections.emptyList()
+                if (claims.getEmail() != null) {
+                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                            claims.getEmail(), null, Collections.emptyList()
                     );
+                    auth.setDetails(claims);
+                    exchange.getAttributes().put(VERIFIED_CLAIMS_ATTRIBUTE, claims);
+                    stageMetrics.record("filter", endpoint, "authenticated", System.nanoTime() - start);
 
                     return chain.filter(exchange)
                             .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
                 }
             } catch (Exception e) {
                 log.error("JWT validation failed: {}", e.getMessage());
+                stageMetrics.record("filter", endpoint, "rejected", System.nanoTime() - start);
+                return chain.filter(exchange);
             }
         }
 
+        stageMetrics.record("filter", endpoint, "anonymous", System.nanoTime() - start);
         return chain.filter(exchange);
     }
 
-    private boolean isPublicPath(String path) {
-        return path.startsWith("/actuator/") ||
+    private boolean isPublicPath(HttpMethod method, String path) {
+        return (path.startsWith("/actuator/") && HttpMethod.GET.equals(method)) ||
                 path.equals("/health") ||
                 path.equals("/info") ||
                 path.equals("/metrics") ||
@@ -64,7 +80,9 @@ public class JwtAuthenticationWebFilter implements WebFilter {
                 path.startsWith("/swagger-resources") ||
                 path.startsWith("/api-docs") ||
                 path.startsWith("/webjars") ||
+                (path.equals("/.well-known/jwks.json") && HttpMethod.GET.equals(method)) ||
                 path.equals("/api/user/sign-up") ||
-                path.equals("/api/login/authenticate");
+                path.equals("/api/login/authenticate") ||
+                path.equals("/api/login/refresh");
     }
-}
\ No newline at end of file
+}
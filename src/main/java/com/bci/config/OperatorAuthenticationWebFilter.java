@@ -0,0 +1,52 @@
+package com.bci.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Autentica al operador por la cabecera {@code X-Operator-Key} y le asigna {@code ROLE_OPERATOR}. Los JWT de
+ * usuario nunca llevan ese rol (cualquiera puede obtener uno registrándose), así que las operaciones
+ * administrativas solo se alcanzan con esta credencial. Con {@code security.operator.api-key} vacío no hay operador.
+ */
+@Slf4j
+@Component
+public class OperatorAuthenticationWebFilter implements WebFilter {
+
+    public static final String OPERATOR_KEY_HEADER = "X-Operator-Key";
+    public static final String OPERATOR_ROLE = "OPERATOR";
+
+    private final byte[] apiKey;
+
+    public OperatorAuthenticationWebFilter(@Value("${security.operator.api-key:}") String apiKey) {
+        this.apiKey = apiKey.isBlank() ? null : apiKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String presented = exchange.getRequest().getHeaders().getFirst(OPERATOR_KEY_HEADER);
+        if (presented == null) {
+            return chain.filter(exchange);
+        }
+
+        if (apiKey == null || !MessageDigest.isEqual(apiKey, presented.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Invalid operator key on {}", exchange.getRequest().getPath().value());
+            return chain.filter(exchange);
+        }
+
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                "operator", null, AuthorityUtils.createAuthorityList("ROLE_" + OPERATOR_ROLE));
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
+    }
+}
@@ -0,0 +1,122 @@
+package com.bci.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Codificador de contraseñas con costo BCrypt calibrado al arrancar: se elige el mayor costo cuyo hash
+ * se mantiene dentro de la latencia objetivo en el hardware actual. Los hashes se guardan con el prefijo
+ * {@code {bcrypt}} y los que tienen otro costo (o ningún prefijo) se marcan para rehash.
+ */
+@Slf4j
+@Configuration
+public class PasswordEncoderConfig {
+    public static final String BCRYPT_ID = "bcrypt";
+
+    private static final String CALIBRATION_PASSWORD = "Calibration1a2";
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.bcrypt.cost:0}") int fixedCost,
+                                           @Value("${security.password-hashing.bcrypt.target-latency:250ms}") Duration targetLatency,
+                                           @Value("${security.password-hashing.bcrypt.min-cost:10}") int minCost,
+                                           @Value("${security.password-hashing.bcrypt.max-cost:14}") int maxCost) {
+        Calibration calibration = fixedCost > 0
+                ? new Calibration(fixedCost, measure(fixedCost))
+                : calibrate(targetLatency, minCost, maxCost);
+        log.info("BCrypt cost set to {} ({} ms per hash)",
+                calibration.cost(), TimeUnit.NANOSECONDS.toMillis(calibration.hashNanos()));
+
+        Gauge.builder("bci.password.bcrypt.cost", calibration, Calibration::cost)
+                .description("Costo BCrypt usado para los nuevos hashes")
+                .register(meterRegistry);
+        TimeGauge.builder("bci.password.bcrypt.hash.time", calibration, TimeUnit.NANOSECONDS, Calibration::hashNanos)
+                .description("Duración de un hash BCrypt medida al calibrar")
+                .register(meterRegistry);
+
+        return delegatingEncoder(calibration.cost());
+    }
+
+    /**
+     * Cada punto de costo duplica el tiempo de hash, así que no se mide un costo cuyo tiempo estimado ya
+     * excede el objetivo. Nunca baja de {@code minCost}, aunque el hardware no alcance el objetivo.
+     */
+    public static Calibration calibrate(Duration targetLatency, int minCost, int maxCost) {
+        long budget = targetLatency.toNanos();
+        int cost = minCost;
+        long hashNanos = measure(minCost);
+
+        while (cost < maxCost && hashNanos * 2 <= budget) {
+            long next = measure(cost + 1);
+            if (next > budget) {
+                break;
+            }
+            cost++;
+            hashNanos = next;
+        }
+        return new Calibration(cost, hashNanos);
+    }
+
+    public static PasswordEncoder delegatingEncoder(int cost) {
+        BCryptPasswordEncoder bcrypt = new FixedCostBCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        // Hashes guardados antes de usar prefijos: se verifican como BCrypt y se rehashean en el login.
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * El mejor de dos hashes: el primero también sirve de calentamiento.
+     */
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public record Calibration(int cost, long hashNanos) {
+    }
+
+    /**
+     * {@link BCryptPasswordEncoder} sólo pide rehash cuando el costo guardado es menor; aquí se pide ante
+     * cualquier diferencia, para que bajar el costo en un entorno también alivie los logins existentes.
+     */
+    private static final class FixedCostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        private static final Pattern COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+        private final int cost;
+
+        FixedCostBCryptPasswordEncoder(int cost) {
+            super(cost);
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = COST.matcher(encodedPassword);
+            return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+        }
+    }
+}
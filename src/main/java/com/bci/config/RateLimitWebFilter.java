@@ -0,0 +1,72 @@
+package com.bci.config;
+
+import com.bci.service.RateLimitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Limita por IP las rutas públicas que ejecutan BCrypt. Se ejecuta antes que cualquier otro filtro para
+ * que una solicitud rechazada no consuma más que un CAS. El límite por email se aplica en los servicios,
+ * que son los que leen el cuerpo de la solicitud.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RateLimitWebFilter implements WebFilter {
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"mensaje\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitService rateLimitService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.POST.equals(request.getMethod()) || !isRateLimitedPath(request.getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        long retryAfterSeconds = rateLimitService.tryAcquireForIp(clientIp(request));
+        if (retryAfterSeconds == 0L) {
+            return chain.filter(exchange);
+        }
+
+        log.warn("Rate limit exceeded for {} on {}", clientIp(request), request.getPath().value());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY)));
+    }
+
+    private static boolean isRateLimitedPath(String path) {
+        return path.equals("/api/login/authenticate") || path.equals("/api/user/sign-up");
+    }
+
+    /**
+     * Detrás de un proxy, la IP real solo se obtiene si {@code server.forward-headers-strategy} está configurado.
+     */
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+}
@@ -0,0 +1,36 @@
+package com.bci.config;
+
+import com.bci.service.RegisteredEmailFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/emailfilter} muestra el estado del filtro; {@code POST} lo reconstruye desde la base de datos
+ * y solo lo puede invocar el operador (ver {@link OperatorAuthenticationWebFilter}).
+ */
+@Component
+@Endpoint(id = "emailfilter")
+@RequiredArgsConstructor
+public class RegisteredEmailFilterEndpoint {
+
+    private final RegisteredEmailFilter registeredEmailFilter;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return Map.of(
+                "size", registeredEmailFilter.approximateSize(),
+                "expected_false_positive_rate", registeredEmailFilter.expectedFalsePositiveRate());
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Object>> rebuild() {
+        return registeredEmailFilter.rebuild()
+                .map(count -> Map.of("rebuilt", true, "size", count));
+    }
+}
@@ -7,8 +7,6 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
 @Configuration
@@ -17,15 +15,18 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 public class SecurityConfig {
 
     private final JwtAuthenticationWebFilter jwtAuthenticationWebFilter;
+    private final OperatorAuthenticationWebFilter operatorAuthenticationWebFilter;
 
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
         return http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .addFilterBefore(jwtAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterBefore(operatorAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
                 .authorizeExchange(exchanges -> exchanges
                         .pathMatchers(HttpMethod.OPTIONS).permitAll()
-                        .pathMatchers("/actuator/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/actuator/**").permitAll()
+                        .pathMatchers("/actuator/**").hasRole(OperatorAuthenticationWebFilter.OPERATOR_ROLE)
                         .pathMatchers("/health").permitAll()
                         .pathMatchers("/info").permitAll()
                         .pathMatchers("/metrics").permitAll()
@@ -37,17 +38,16 @@ public class SecurityConfig {
                         .pathMatchers("/swagger-config").permitAll()
                         .pathMatchers("/api-docs/**").permitAll()
                         .pathMatchers("/webjars/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
                         .pathMatchers("/api/user/sign-up").permitAll()
                         .pathMatchers("/api/login/authenticate").permitAll()
+                        .pathMatchers("/api/login/refresh").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/api/user/bulk-sign-up").hasRole(OperatorAuthenticationWebFilter.OPERATOR_ROLE)
+                        .pathMatchers(HttpMethod.GET, "/api/user/export").hasRole(OperatorAuthenticationWebFilter.OPERATOR_ROLE)
                         .anyExchange().authenticated()
                 )
                 .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
                 .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
                 .build();
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.bci.config;
+
+import com.bci.service.UserCache;
+import com.bci.service.impl.CaffeineUserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class UserCacheConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(UserCache.class)
+    public UserCache userCache(MeterRegistry meterRegistry,
+                               @Value("${users.cache.max-size:10000}") long maxSize,
+                               @Value("${users.cache.ttl:10m}") Duration ttl) {
+        return new CaffeineUserCache(maxSize, ttl, meterRegistry);
+    }
+}
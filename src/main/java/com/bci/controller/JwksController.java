@@ -0,0 +1,84 @@
+package com.bci.controller;
+
+import com.bci.model.JwkSetDTO;
+import com.bci.service.JwtService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@RestController
+@Tag(name = "JWKS", description = "Claves públicas para verificar tokens localmente")
+public class JwksController {
+
+    private final JwtService jwtService;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtService jwtService,
+                          @Value("${jwt.signing.jwks-max-age:10m}") Duration maxAge) {
+        this.jwtService = jwtService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @Operation(
+            summary = "Obtener el JWKS",
+            description = "Claves públicas vigentes (activa, siguiente y retiradas con tokens aún válidos), indexadas por kid. " +
+                    "Responde 304 si el ETag enviado en If-None-Match no cambió."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Conjunto de claves",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = JwkSetDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag indicado")
+    })
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<JwkSetDTO>> jwks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        JwkSetDTO jwks = jwtService.publicKeys();
+        if (matches(ifNoneMatch, jwks.getEtag())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .eTag(jwks.getEtag())
+                    .build());
+        }
+        return Mono.just(ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(jwks.getEtag())
+                .body(jwks));
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
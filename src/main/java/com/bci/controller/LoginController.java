@@ -1,11 +1,19 @@
 package com.bci.controller;
 
 
+import com.bci.config.JwtAuthenticationWebFilter;
 import com.bci.model.ErrorResponseDTO;
 import com.bci.model.LoginRequestDTO;
+import com.bci.model.RefreshTokenRequestDTO;
+import com.bci.model.ResponseFields;
+import com.bci.model.TokenClaims;
+import com.bci.model.TokenIntrospectionDTO;
+import com.bci.model.TokenResponseDTO;
 import com.bci.model.UserResponseDTO;
 import com.bci.service.LoginService;
+import com.bci.service.TokenIntrospectionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,13 +25,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -33,6 +45,7 @@ import jakarta.validation.Valid;
 public class LoginController {
 
     private final LoginService loginService;
+    private final TokenIntrospectionService tokenIntrospectionService;
 
     @Operation(
             summary = "Iniciar sesión",
@@ -66,9 +79,16 @@ public class LoginController {
     })
     @GetMapping(value = "/validate", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<Object>> login(
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(hidden = true)
+            @RequestAttribute(name = JwtAuthenticationWebFilter.VERIFIED_CLAIMS_ATTRIBUTE, required = false)
+            TokenClaims verifiedClaims,
+            @Parameter(description = "Campos a devolver separados por coma (p. ej. id,token); sin phones no se consultan los teléfonos")
+            @RequestParam(value = "fields", required = false) String fields,
+            @Parameter(description = "return=minimal devuelve sólo id, token y refresh_token")
+            @RequestHeader(value = ResponseFields.PREFER_HEADER, required = false) String prefer) {
         log.info("Iniciando proceso de login");
-        return loginService.login(authHeader)
+        return loginService.login(authHeader, verifiedClaims, ResponseFields.parse(fields, prefer))
                 .doOnSuccess(response -> log.info("Login exitoso"))
                 .doOnError(error -> log.error("Error durante el login: {}", error.getMessage()));
     }
@@ -113,10 +133,120 @@ public class LoginController {
     })
     @PostMapping(value = "/authenticate", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<Object>> loginWithCredentials(
-            @Valid @RequestBody LoginRequestDTO request) {
+            @Valid @RequestBody LoginRequestDTO request,
+            @Parameter(description = "Campos a devolver separados por coma (p. ej. token,refresh_token); sin phones no se consultan los teléfonos")
+            @RequestParam(value = "fields", required = false) String fields,
+            @Parameter(description = "return=minimal devuelve sólo id, token y refresh_token")
+            @RequestHeader(value = ResponseFields.PREFER_HEADER, required = false) String prefer) {
         log.info("Iniciando proceso de login con credenciales para email: {}", request.getEmail());
-        return loginService.loginWithCredentials(request)
+        return loginService.loginWithCredentials(request, ResponseFields.parse(fields, prefer))
                 .doOnSuccess(response -> log.info("Login con credenciales exitoso para email: {}", request.getEmail()))
                 .doOnError(error -> log.error("Error durante el login con credenciales: {}", error.getMessage()));
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Renovar token",
+            description = "Canjea un refresh token por un nuevo token de acceso y un nuevo refresh token, sin reenviar la contraseña. El refresh token usado deja de ser válido."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Token renovado",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = TokenResponseDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "No autorizado - refresh token inválido, expirado o ya usado",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/refresh", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> refresh(@Valid @RequestBody RefreshTokenRequestDTO request) {
+        log.info("Iniciando renovación de token");
+        return loginService.refresh(request)
+                .doOnError(error -> log.error("Error durante la renovación de token: {}", error.getMessage()));
+    }
+
+    @Operation(
+            summary = "Cerrar sesión",
+            description = "Revoca el token de acceso presentado. Con all=true revoca además todos los tokens de acceso y refresh tokens del usuario."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Sesión cerrada"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "No autorizado - token inválido, expirado o revocado",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/logout", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> logout(
+            @Parameter(description = "Cerrar todas las sesiones del usuario")
+            @RequestParam(name = "all", defaultValue = "false") boolean all,
+            @Parameter(hidden = true)
+            @RequestAttribute(name = JwtAuthenticationWebFilter.VERIFIED_CLAIMS_ATTRIBUTE, required = false)
+            TokenClaims verifiedClaims) {
+        log.info("Iniciando cierre de sesión");
+        return loginService.logout(verifiedClaims, all)
+                .doOnError(error -> log.error("Error durante el cierre de sesión: {}", error.getMessage()));
+    }
+
+    @Operation(
+            summary = "Introspección de tokens",
+            description = "Verifica muchos tokens en una solicitud sin reemitirlos ni escribir en la base de datos. "
+                    + "Recibe un arreglo JSON de tokens y responde un arreglo con active, email, user_id y exp de cada uno, en el mismo orden. "
+                    + "Con check_user=true además comprueba que el usuario siga existiendo y activo."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Resultado por token",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = TokenIntrospectionDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Solicitud incorrecta - demasiados tokens",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "No autorizado - token JWT requerido")
+    })
+    @PostMapping(value = "/introspect",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> introspect(
+            @RequestBody List<String> tokens,
+            @Parameter(description = "Comprobar además que el usuario exista y esté activo")
+            @RequestParam(name = "check_user", defaultValue = "false") boolean checkUser) {
+        return tokenIntrospectionService.introspectAll(tokens, checkUser);
+    }
+
+    @Operation(
+            summary = "Introspección de tokens en streaming",
+            description = "Igual que la introspección por arreglo, pero recibe un token por línea en NDJSON y responde "
+                    + "en NDJSON a medida que verifica, sin límite de tokens."
+    )
+    @PostMapping(value = "/introspect",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TokenIntrospectionDTO> introspectStream(
+            @RequestBody Flux<String> tokens,
+            @Parameter(description = "Comprobar además que el usuario exista y esté activo")
+            @RequestParam(name = "check_user", defaultValue = "false") boolean checkUser) {
+        return tokenIntrospectionService.introspect(tokens, checkUser);
+    }
+}
@@ -1,11 +1,18 @@
 package com.bci.controller;
 
 
+import com.bci.model.BulkSignUpResultDTO;
 import com.bci.model.ErrorResponseDTO;
+import com.bci.model.ResponseFields;
+import com.bci.model.UserExportDTO;
 import com.bci.model.UserResponseDTO;
 import com.bci.model.UserSignUpRequestDTO;
+import com.bci.service.BulkSignUpService;
+import com.bci.service.IdempotencyService;
+import com.bci.service.UserExportService;
 import com.bci.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,10 +22,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
@@ -31,6 +43,8 @@ import jakarta.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final BulkSignUpService bulkSignUpService;
+    private final UserExportService userExportService;
 
     @Operation(
             summary = "Registra un nuevo usuario",
@@ -60,15 +74,79 @@ public class UserController {
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = ErrorResponseDTO.class)
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Idempotency-Key ya usada con otra solicitud",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
             )
     })
     @PostMapping(value = "/sign-up", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<ResponseEntity<Object>> signUp(@Valid @RequestBody UserSignUpRequestDTO request) {
+    public Mono<ResponseEntity<Object>> signUp(
+            @Valid @RequestBody UserSignUpRequestDTO request,
+            @Parameter(description = "Clave única por intento de registro; los reintentos con la misma clave reciben la respuesta original")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Parameter(description = "Campos a devolver separados por coma (p. ej. id,token)")
+            @RequestParam(value = "fields", required = false) String fields,
+            @Parameter(description = "return=minimal devuelve sólo id y token")
+            @RequestHeader(value = ResponseFields.PREFER_HEADER, required = false) String prefer) {
         log.info("Iniciando registro de usuario con email: {}", request.getEmail());
-        return userService.signUp(request)
+        return userService.signUp(request, idempotencyKey, ResponseFields.parse(fields, prefer))
                 .doOnSuccess(response -> log.info("Usuario registrado exitosamente"))
                 .doOnError(error -> log.error("Error durante el registro: {}", error.getMessage()));
     }
 
+    @Operation(
+            summary = "Registra usuarios de forma masiva",
+            description = "Recibe un flujo NDJSON con una solicitud de registro por línea y devuelve, también en NDJSON, "
+                    + "el resultado de cada línea (CREATED, CONFLICT, INVALID o FAILED) a medida que se procesa"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Flujo con el resultado de cada línea",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = BulkSignUpResultDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "No autorizado - cabecera X-Operator-Key requerida"),
+            @ApiResponse(responseCode = "403", description = "Prohibido - operación reservada al operador")
+    })
+    @PostMapping(value = "/bulk-sign-up",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkSignUpResultDTO> bulkSignUp(@RequestBody Flux<String> lines) {
+        log.info("Iniciando registro masivo de usuarios");
+        return bulkSignUpService.bulkSignUp(lines)
+                .doOnComplete(() -> log.info("Registro masivo finalizado"))
+                .doOnError(error -> log.error("Error durante el registro masivo: {}", error.getMessage()));
+    }
 
-}
\ No newline at end of file
+    @Operation(
+            summary = "Exporta todos los usuarios",
+            description = "Devuelve en NDJSON todos los usuarios con sus teléfonos, ordenados por id. "
+                    + "La lectura se hace por páginas según el ritmo de consumo del cliente"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Un usuario por línea",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = UserExportDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "No autorizado - cabecera X-Operator-Key requerida"),
+            @ApiResponse(responseCode = "403", description = "Prohibido - operación reservada al operador")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> export(ServerHttpResponse response) {
+        log.info("Iniciando exportación de usuarios");
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        return response.writeWith(userExportService.exportNdjson(response.bufferFactory()));
+    }
+}
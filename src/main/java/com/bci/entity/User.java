@@ -38,9 +38,18 @@ public class User {
     @Column
     private LocalDateTime lastLogin;
 
-    @Column
+    /**
+     * Último token emitido; sólo viaja en la respuesta, no se persiste.
+     */
+    @Transient
     private String token;
 
+    /**
+     * Se incrementa para revocar de una vez todos los tokens de acceso emitidos al usuario.
+     */
+    @Column("token_version")
+    private Integer tokenVersion = 0;
+
     @Column("is_active")
     private Boolean isActive;
 
@@ -0,0 +1,31 @@
+package com.bci.exception;
+
+import io.r2dbc.spi.R2dbcTimeoutException;
+
+/**
+ * Se lanza cuando no se obtiene una conexión del pool R2DBC dentro de {@code spring.r2dbc.pool.max-acquire-time}.
+ */
+public class DatabaseBusyException extends ServiceUnavailableException {
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    public DatabaseBusyException(Throwable cause) {
+        super("Database busy, please retry later", RETRY_AFTER_SECONDS);
+        initCause(cause);
+    }
+
+    /**
+     * Spring envuelve el timeout del pool en una {@code DataAccessResourceFailureException},
+     * por lo que se recorre toda la cadena de causas.
+     */
+    public static boolean isAcquireTimeout(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof R2dbcTimeoutException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+}
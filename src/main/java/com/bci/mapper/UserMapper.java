@@ -4,6 +4,7 @@ import com.bci.entity.Phone;
 import com.bci.entity.User;
 import com.bci.model.PhoneRequestDTO;
 import com.bci.model.PhoneResponseDTO;
+import com.bci.model.UserExportDTO;
 import com.bci.model.UserResponseDTO;
 import com.bci.model.UserSignUpRequestDTO;
 import org.springframework.stereotype.Component;
@@ -84,4 +85,27 @@ public class UserMapper {
                 entity.getIsActive()
         );
     }
-}
\ No newline at end of file
+
+    public UserExportDTO toExportDTO(User entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        List<PhoneResponseDTO> phoneDTOs = entity.getPhones() != null ?
+                entity.getPhones().stream()
+                        .map(this::phoneEntityToDTO)
+                        .filter(phone -> phone != null)
+                        .collect(Collectors.toList()) :
+                List.of();
+
+        return new UserExportDTO(
+                entity.getId(),
+                entity.getName(),
+                entity.getEmail(),
+                phoneDTOs,
+                entity.getCreated(),
+                entity.getLastLogin(),
+                entity.getIsActive()
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package com.bci.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Mide la duración de cada etapa de los flujos de registro y login en el timer {@code bci.stage.duration},
+ * etiquetado por etapa, endpoint y resultado. Los histogramas de percentiles se habilitan en {@code application.yml}.
+ */
+@Component
+public class StageMetrics {
+    public static final String METRIC_NAME = "bci.stage.duration";
+
+    public static final String SIGN_UP = "sign-up";
+    public static final String BULK_SIGN_UP = "bulk-sign-up";
+    public static final String LOGIN_VALIDATE = "login-validate";
+    public static final String LOGIN_AUTHENTICATE = "login-authenticate";
+    public static final String LOGIN_REFRESH = "login-refresh";
+    public static final String INTROSPECT = "introspect";
+    public static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Mide desde la suscripción hasta que el {@link Mono} termina, falla o se cancela.
+     */
+    public <T> Mono<T> time(String stage, String endpoint, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(stage, endpoint, outcome(signal), System.nanoTime() - start));
+        });
+    }
+
+    public <T> T time(String stage, String endpoint, Supplier<T> task) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = task.get();
+            outcome = "success";
+            return result;
+        } finally {
+            record(stage, endpoint, outcome, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String stage, String endpoint, String outcome, long nanos) {
+        timer(stage, endpoint, outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Traduce la ruta de la solicitud a un valor acotado para la etiqueta {@code endpoint}.
+     */
+    public static String endpointOf(String path) {
+        return switch (path) {
+            case "/api/user/sign-up" -> SIGN_UP;
+            case "/api/user/bulk-sign-up" -> BULK_SIGN_UP;
+            case "/api/login/validate" -> LOGIN_VALIDATE;
+            case "/api/login/authenticate" -> LOGIN_AUTHENTICATE;
+            case "/api/login/refresh" -> LOGIN_REFRESH;
+            case "/api/login/introspect" -> INTROSPECT;
+            default -> OTHER;
+        };
+    }
+
+    private Timer timer(String stage, String endpoint, String outcome) {
+        return timers.computeIfAbsent(stage + '|' + endpoint + '|' + outcome, key -> Timer.builder(METRIC_NAME)
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+    }
+}
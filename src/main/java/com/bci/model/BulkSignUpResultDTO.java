@@ -0,0 +1,41 @@
+package com.bci.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+@Schema(description = "Resultado del registro de una línea del registro masivo")
+public class BulkSignUpResultDTO {
+
+    @Schema(description = "Número de línea en el cuerpo NDJSON (comienza en 1)", example = "1")
+    long line;
+
+    @Schema(description = "Correo electrónico de la línea, si pudo leerse", example = "juan.perez@example.com")
+    String email;
+
+    @Schema(description = "Resultado del registro", example = "CREATED")
+    Status status;
+
+    @Schema(description = "Identificador del usuario creado", example = "550e8400-e29b-41d4-a716-446655440000")
+    UUID id;
+
+    @Schema(description = "Detalle cuando la línea no se registró", example = "Email already registered")
+    String mensaje;
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID,
+        FAILED
+    }
+
+    public static BulkSignUpResultDTO created(long line, String email, UUID id) {
+        return new BulkSignUpResultDTO(line, email, Status.CREATED, id, null);
+    }
+
+    public static BulkSignUpResultDTO rejected(long line, String email, Status status, String mensaje) {
+        return new BulkSignUpResultDTO(line, email, status, null, mensaje);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bci.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+@Schema(description = "Claves públicas vigentes para verificar tokens ES256 (RFC 7517)")
+public class JwkSetDTO {
+    @Schema(description = "Claves EC P-256 indexadas por kid; vacío si los tokens se firman con HS256")
+    List<Map<String, String>> keys;
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    String etag;
+}
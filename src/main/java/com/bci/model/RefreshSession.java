@@ -0,0 +1,11 @@
+package com.bci.model;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+public class RefreshSession {
+    UUID userId;
+    String email;
+}
@@ -0,0 +1,21 @@
+package com.bci.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Value;
+
+@Value
+@Schema(description = "Refresh token a canjear por un nuevo token de acceso")
+public class RefreshTokenRequestDTO {
+
+    @NotBlank(message = "El refresh token es obligatorio")
+    @Schema(description = "Refresh token recibido en el último inicio de sesión o renovación", required = true)
+    String refreshToken;
+
+    @JsonCreator
+    public RefreshTokenRequestDTO(@JsonProperty("refresh_token") String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
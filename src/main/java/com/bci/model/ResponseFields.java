@@ -0,0 +1,105 @@
+package com.bci.model;
+
+import com.bci.exception.ValidationException;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Campos de {@link UserResponseDTO} que pidió el cliente, con {@code ?fields=} (nombres JSON separados por
+ * coma) o con {@code Prefer: return=minimal} (id y tokens). Los campos no pedidos se devuelven en
+ * {@code null} y Jackson los omite; si no se piden los teléfonos, tampoco se consultan.
+ */
+public final class ResponseFields {
+    public static final String PREFER_HEADER = "Prefer";
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    public static final String RETURN_MINIMAL = "return=minimal";
+
+    private static final List<String> NAMES = List.of(
+            "id", "name", "email", "phones", "created", "last_login", "token", "refresh_token", "is_active");
+    private static final ResponseFields ALL = new ResponseFields(Set.copyOf(NAMES), false);
+    private static final ResponseFields MINIMAL = new ResponseFields(Set.of("id", "token", "refresh_token"), true);
+
+    private final Set<String> names;
+    private final boolean minimal;
+
+    private ResponseFields(Set<String> names, boolean minimal) {
+        this.names = names;
+        this.minimal = minimal;
+    }
+
+    public static ResponseFields all() {
+        return ALL;
+    }
+
+    /**
+     * {@code fields} tiene prioridad sobre {@code Prefer}; sin ninguno de los dos se devuelven todos los campos.
+     *
+     * @throws ValidationException si {@code fields} está vacío o nombra un campo desconocido
+     */
+    public static ResponseFields parse(String fields, String prefer) {
+        if (fields != null) {
+            Set<String> names = new LinkedHashSet<>();
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!NAMES.contains(trimmed)) {
+                    throw new ValidationException("Unknown field: " + trimmed);
+                }
+                names.add(trimmed);
+            }
+            if (names.isEmpty()) {
+                throw new ValidationException("fields must name at least one of " + String.join(",", NAMES));
+            }
+            return names.size() == NAMES.size() ? ALL : new ResponseFields(Set.copyOf(names), false);
+        }
+
+        return prefersMinimal(prefer) ? MINIMAL : ALL;
+    }
+
+    public boolean includesPhones() {
+        return names.contains("phones");
+    }
+
+    /**
+     * Proyecta el cuerpo de una respuesta con {@link UserResponseDTO}; cualquier otro cuerpo (errores) no se toca.
+     */
+    public ResponseEntity<Object> applyTo(ResponseEntity<Object> response) {
+        if (this == ALL || !(response.getBody() instanceof UserResponseDTO user)) {
+            return response;
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders());
+        if (minimal) {
+            builder.header(PREFERENCE_APPLIED_HEADER, RETURN_MINIMAL);
+        }
+        return builder.body(new UserResponseDTO(
+                names.contains("id") ? user.getId() : null,
+                names.contains("name") ? user.getName() : null,
+                names.contains("email") ? user.getEmail() : null,
+                names.contains("phones") ? user.getPhones() : null,
+                names.contains("created") ? user.getCreated() : null,
+                names.contains("last_login") ? user.getLastLogin() : null,
+                names.contains("token") ? user.getToken() : null,
+                names.contains("refresh_token") ? user.getRefreshToken() : null,
+                names.contains("is_active") ? user.getIsActive() : null));
+    }
+
+    private static boolean prefersMinimal(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            String token = preference.split(";")[0].replace(" ", "");
+            if (token.equalsIgnoreCase(RETURN_MINIMAL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bci.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class TokenClaims {
+    String email;
+    String userId;
+    Instant issuedAt;
+    Instant expiration;
+    String tokenId;
+    int tokenVersion;
+}
@@ -0,0 +1,28 @@
+package com.bci.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+@Value
+@Schema(description = "Resultado de la introspección de un token, en el mismo orden de la solicitud")
+public class TokenIntrospectionDTO {
+    @Schema(description = "Si el token es válido, no expiró ni fue revocado", example = "true")
+    boolean active;
+
+    @Schema(description = "Correo electrónico del titular (sólo si está activo)", example = "juan.perez@example.com")
+    String email;
+
+    @Schema(description = "Identificador del usuario (sólo si está activo)", example = "550e8400-e29b-41d4-a716-446655440000")
+    String userId;
+
+    @Schema(description = "Expiración en segundos desde epoch (sólo si está activo)", example = "1754650800")
+    Long exp;
+
+    public static TokenIntrospectionDTO active(TokenClaims claims) {
+        return new TokenIntrospectionDTO(true, claims.getEmail(), claims.getUserId(), claims.getExpiration().getEpochSecond());
+    }
+
+    public static TokenIntrospectionDTO inactive() {
+        return new TokenIntrospectionDTO(false, null, null, null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bci.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+@Value
+@Schema(description = "Nuevo par de tokens emitido al renovar la sesión")
+public class TokenResponseDTO {
+    @Schema(description = "Token de acceso JWT de corta duración")
+    String token;
+
+    @Schema(description = "Nuevo refresh token; el anterior deja de ser válido")
+    String refreshToken;
+}
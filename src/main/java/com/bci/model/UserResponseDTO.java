@@ -1,13 +1,16 @@
 package com.bci.model;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import lombok.With;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Value
+@AllArgsConstructor
 @Schema(description = "Respuesta con los datos del usuario registrado o autenticado")
 public class UserResponseDTO {
     @Schema(description = "Identificador único del usuario", example = "550e8400-e29b-41d4-a716-446655440000")
@@ -31,6 +34,15 @@ public class UserResponseDTO {
     @Schema(description = "Token de autenticación")
     String token;
 
+    @With
+    @Schema(description = "Refresh token opaco para renovar el token sin reenviar la contraseña (sólo en el login con credenciales)")
+    String refreshToken;
+
     @Schema(description = "Estado del usuario", example = "true")
     Boolean isActive;
+
+    public UserResponseDTO(UUID id, String name, String email, List<PhoneResponseDTO> phones, LocalDateTime created,
+                           LocalDateTime lastLogin, String token, Boolean isActive) {
+        this(id, name, email, phones, created, lastLogin, token, null, isActive);
+    }
 }
@@ -7,7 +7,7 @@ import reactor.core.publisher.Flux;
 import java.util.UUID;
 
 
-public interface PhoneRepository extends ReactiveCrudRepository<Phone, Long> {
+public interface PhoneRepository extends ReactiveCrudRepository<Phone, Long>, PhoneRepositoryCustom {
     Flux<Phone> findByUserId(UUID userId);
 }
 
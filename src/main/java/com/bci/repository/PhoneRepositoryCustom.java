@@ -0,0 +1,14 @@
+package com.bci.repository;
+
+import com.bci.entity.Phone;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface PhoneRepositoryCustom {
+
+    /**
+     * Inserta todos los teléfonos con un único INSERT multi-fila.
+     */
+    Flux<Phone> insertAll(List<Phone> phones);
+}
@@ -0,0 +1,45 @@
+package com.bci.repository;
+
+import com.bci.entity.Phone;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PhoneRepositoryCustomImpl implements PhoneRepositoryCustom {
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Phone> insertAll(List<Phone> phones) {
+        if (phones == null || phones.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO phones (number, citycode, country_code, user_id) VALUES ");
+        for (int i = 0; i < phones.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:number").append(i)
+                    .append(", :citycode").append(i)
+                    .append(", :countrycode").append(i)
+                    .append(", :userId").append(i)
+                    .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < phones.size(); i++) {
+            Phone phone = phones.get(i);
+            spec = spec.bind("number" + i, phone.getNumber())
+                    .bind("citycode" + i, phone.getCitycode())
+                    .bind("countrycode" + i, phone.getCountrycode())
+                    .bind("userId" + i, phone.getUserId());
+        }
+
+        return spec.fetch()
+                .rowsUpdated()
+                .thenMany(Flux.fromIterable(phones));
+    }
+}
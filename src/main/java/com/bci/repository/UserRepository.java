@@ -1,13 +1,35 @@
 package com.bci.repository;
 
 import com.bci.entity.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
-public interface UserRepository extends ReactiveCrudRepository<User, UUID> {
+public interface UserRepository extends ReactiveCrudRepository<User, UUID>, UserRepositoryCustom {
     Mono<User> findByEmail(String email);
+    Mono<Boolean> existsByEmail(String email);
+
+    @Query("SELECT email FROM users")
+    Flux<String> findAllEmails();
+
+    @Query("SELECT email FROM users WHERE email IN (:emails)")
+    Flux<String> findExistingEmails(Collection<String> emails);
+
+    @Modifying
+    @Query("UPDATE users SET password = :password WHERE id = :id")
+    Mono<Integer> updatePassword(UUID id, String password);
+
+    @Modifying
+    @Query("UPDATE users SET token_version = token_version + 1 WHERE id = :id")
+    Mono<Integer> incrementTokenVersion(UUID id);
+
+    @Query("SELECT token_version FROM users WHERE id = :id")
+    Mono<Integer> findTokenVersion(UUID id);
 
 
 
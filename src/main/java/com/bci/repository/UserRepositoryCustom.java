@@ -0,0 +1,47 @@
+package com.bci.repository;
+
+import com.bci.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserta el usuario con el id ya asignado por la aplicación, en una única sentencia.
+     */
+    Mono<User> insert(User user);
+
+    /**
+     * Inserta todos los usuarios con un único INSERT multi-fila.
+     */
+    Flux<User> insertAll(List<User> users);
+
+    /**
+     * Carga el usuario junto con sus teléfonos en una sola consulta.
+     */
+    Mono<User> findWithPhonesByEmail(String email);
+
+    /**
+     * Carga sólo la fila del usuario; {@code phones} queda en {@code null} para distinguirlo de un usuario
+     * sin teléfonos.
+     */
+    Mono<User> findWithoutPhonesByEmail(String email);
+
+    /**
+     * Devuelve hasta {@code pageSize} usuarios con id mayor que {@code afterId} (o desde el inicio si es
+     * {@code null}), ordenados por id y con sus teléfonos, cargados con una sola consulta por página.
+     */
+    Mono<List<User>> findPageWithPhones(UUID afterId, int pageSize);
+
+    /**
+     * Actualiza {@code last_login} de varios usuarios en un único lote de sentencias.
+     */
+    Mono<Long> updateLastLogins(List<LastLogin> updates);
+
+    record LastLogin(UUID userId, LocalDateTime lastLogin) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.bci.repository;
+
+import com.bci.entity.User;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<User> insert(User user) {
+        return entityTemplate.insert(user);
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO users (id, name, email, password, created, token_version, is_active) VALUES ");
+        for (int i = 0; i < users.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :name").append(i)
+                    .append(", :email").append(i)
+                    .append(", :password").append(i)
+                    .append(", :created").append(i)
+                    .append(", :tokenVersion").append(i)
+                    .append(", :isActive").append(i)
+                    .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            spec = spec.bind("id" + i, user.getId())
+                    .bind("name" + i, user.getName())
+                    .bind("email" + i, user.getEmail())
+                    .bind("password" + i, user.getPassword())
+                    .bind("created" + i, user.getCreated())
+                    .bind("tokenVersion" + i, user.getTokenVersion() != null ? user.getTokenVersion() : 0)
+                    .bind("isActive" + i, user.getIsActive());
+        }
+
+        return spec.fetch()
+                .rowsUpdated()
+                .thenMany(Flux.fromIterable(users));
+    }
+
+    @Override
+    public Mono<User> findWithPhonesByEmail(String email) {
+        return databaseClient.sql(UserRowMapper.USER_WITH_PHONES_SELECT + "WHERE u.email = :email ORDER BY p.id")
+                .bind("email", email)
+                .map((row, metadata) -> UserRowMapper.mapRow(row))
+                .all()
+                .collectList()
+                .flatMap(rows -> Mono.justOrEmpty(UserRowMapper.aggregate(rows).stream().findFirst()));
+    }
+
+    @Override
+    public Mono<User> findWithoutPhonesByEmail(String email) {
+        return databaseClient.sql(UserRowMapper.USER_SELECT + "WHERE u.email = :email")
+                .bind("email", email)
+                .map((row, metadata) -> {
+                    User user = UserRowMapper.mapUser(row);
+                    user.setPhones(null);
+                    return user;
+                })
+                .one();
+    }
+
+    @Override
+    public Mono<List<User>> findPageWithPhones(UUID afterId, int pageSize) {
+        String sql = UserRowMapper.USER_SELECT
+                + (afterId != null ? "WHERE u.id > :afterId " : "")
+                + "ORDER BY u.id LIMIT :limit";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("limit", pageSize);
+        if (afterId != null) {
+            spec = spec.bind("afterId", afterId);
+        }
+
+        return spec.map((row, metadata) -> UserRowMapper.mapUser(row))
+                .all()
+                .collectList()
+                .flatMap(users -> users.isEmpty() ? Mono.just(users) : attachPhones(users));
+    }
+
+    private Mono<List<User>> attachPhones(List<User> users) {
+        Map<UUID, User> usersById = new LinkedHashMap<>();
+        for (User user : users) {
+            user.setPhones(new ArrayList<>());
+            usersById.put(user.getId(), user);
+        }
+
+        return databaseClient.sql(UserRowMapper.PHONE_SELECT + "WHERE p.user_id IN (:userIds) ORDER BY p.id")
+                .bind("userIds", new ArrayList<>(usersById.keySet()))
+                .map((row, metadata) -> UserRowMapper.mapPhoneColumns(row))
+                .all()
+                .doOnNext(phone -> usersById.get(phone.getUserId()).getPhones().add(phone))
+                .then(Mono.just(users));
+    }
+
+    @Override
+    public Mono<Long> updateLastLogins(List<LastLogin> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(
+                            "UPDATE users SET last_login = $1 WHERE id = $2");
+                    for (int i = 0; i < updates.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        LastLogin update = updates.get(i);
+                        statement.bind(0, update.lastLogin());
+                        statement.bind(1, update.userId());
+                    }
+                    return Flux.from(statement.execute())
+                            .flatMap(Result::getRowsUpdated);
+                })
+                .reduce(0L, Long::sum);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bci.repository;
+
+import com.bci.entity.Phone;
+import com.bci.entity.User;
+import io.r2dbc.spi.Row;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Convierte las filas de {@code users LEFT JOIN phones} en agregados {@link User} con sus teléfonos.
+ */
+final class UserRowMapper {
+
+    static final String USER_WITH_PHONES_SELECT = """
+            SELECT u.id, u.name, u.email, u.password, u.created, u.last_login, u.token_version, u.is_active,
+                   p.id AS phone_id, p.number AS phone_number, p.citycode AS phone_citycode,
+                   p.country_code AS phone_country_code
+            FROM users u
+            LEFT JOIN phones p ON p.user_id = u.id
+            """;
+
+    static final String USER_SELECT = """
+            SELECT u.id, u.name, u.email, u.password, u.created, u.last_login, u.token_version, u.is_active
+            FROM users u
+            """;
+
+    static final String PHONE_SELECT = """
+            SELECT p.id, p.number, p.citycode, p.country_code, p.user_id
+            FROM phones p
+            """;
+
+    private UserRowMapper() {
+    }
+
+    static UserPhoneRow mapRow(Row row) {
+        return new UserPhoneRow(mapUser(row), mapPhone(row));
+    }
+
+    static User mapUser(Row row) {
+        User user = new User();
+        user.setId(row.get("id", UUID.class));
+        user.setName(row.get("name", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setPassword(row.get("password", String.class));
+        user.setCreated(row.get("created", LocalDateTime.class));
+        user.setLastLogin(row.get("last_login", LocalDateTime.class));
+        user.setTokenVersion(row.get("token_version", Integer.class));
+        user.setIsActive(row.get("is_active", Boolean.class));
+        return user;
+    }
+
+    static Phone mapPhone(Row row) {
+        Long phoneId = row.get("phone_id", Long.class);
+        if (phoneId == null) {
+            return null;
+        }
+
+        Phone phone = new Phone();
+        phone.setId(phoneId);
+        phone.setNumber(row.get("phone_number", String.class));
+        phone.setCitycode(row.get("phone_citycode", Integer.class));
+        phone.setCountrycode(row.get("phone_country_code", String.class));
+        phone.setUserId(row.get("id", UUID.class));
+        return phone;
+    }
+
+    /**
+     * Lee un teléfono de una consulta sobre {@code phones} sin join ({@link #PHONE_SELECT}).
+     */
+    static Phone mapPhoneColumns(Row row) {
+        Phone phone = new Phone();
+        phone.setId(row.get("id", Long.class));
+        phone.setNumber(row.get("number", String.class));
+        phone.setCitycode(row.get("citycode", Integer.class));
+        phone.setCountrycode(row.get("country_code", String.class));
+        phone.setUserId(row.get("user_id", UUID.class));
+        return phone;
+    }
+
+    /**
+     * Agrupa las filas por usuario conservando el orden en que llegaron.
+     */
+    static List<User> aggregate(List<UserPhoneRow> rows) {
+        Map<UUID, User> users = new LinkedHashMap<>();
+        for (UserPhoneRow row : rows) {
+            User user = users.computeIfAbsent(row.user().getId(), id -> {
+                User aggregate = row.user();
+                aggregate.setPhones(new ArrayList<>());
+                return aggregate;
+            });
+            if (row.phone() != null) {
+                user.getPhones().add(row.phone());
+            }
+        }
+        return new ArrayList<>(users.values());
+    }
+
+    record UserPhoneRow(User user, Phone phone) {
+    }
+}
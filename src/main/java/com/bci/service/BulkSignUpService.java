@@ -0,0 +1,9 @@
+package com.bci.service;
+
+import com.bci.model.BulkSignUpResultDTO;
+import reactor.core.publisher.Flux;
+
+public interface BulkSignUpService {
+
+    Flux<BulkSignUpResultDTO> bulkSignUp(Flux<String> lines);
+}
@@ -0,0 +1,22 @@
+package com.bci.service;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Respuestas guardadas por {@code Idempotency-Key}: la primera solicitud con una clave ejecuta la operación,
+ * los reintentos reciben la misma respuesta y los duplicados concurrentes esperan a que termine.
+ */
+public interface IdempotencyService {
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * @param key     clave ya calificada con la operación a la que pertenece
+     * @param request representación canónica de la solicitud; reusar la clave con otra distinta falla con
+     *                {@link com.bci.exception.IdempotencyKeyMismatchException}
+     */
+    Mono<ResponseEntity<Object>> execute(String key, String request, Supplier<Mono<ResponseEntity<Object>>> operation);
+}
@@ -2,9 +2,27 @@ package com.bci.service;
 
 
 import com.bci.entity.User;
+import com.bci.model.JwkSetDTO;
+import com.bci.model.TokenClaims;
 
 public interface JwtService {
 
     String generateToken(User user);
     String validateTokenAndGetEmail(String token);
+    TokenClaims validateToken(String token);
+
+    /**
+     * Revoca un token concreto por su {@code jti} hasta que expire.
+     */
+    void revoke(TokenClaims claims);
+
+    /**
+     * Revoca todos los tokens del usuario con versión menor a {@code minimumVersion}.
+     */
+    void revokeVersionsBefore(String userId, int minimumVersion);
+
+    /**
+     * Claves públicas con las que un consumidor puede verificar localmente los tokens emitidos.
+     */
+    JwkSetDTO publicKeys();
 }
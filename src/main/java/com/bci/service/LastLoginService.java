@@ -0,0 +1,10 @@
+package com.bci.service;
+
+import com.bci.entity.User;
+import reactor.core.publisher.Mono;
+
+public interface LastLoginService {
+
+    void record(User user);
+    Mono<Long> flush();
+}
@@ -2,6 +2,9 @@ package com.bci.service;
 
 
 import com.bci.model.LoginRequestDTO;
+import com.bci.model.RefreshTokenRequestDTO;
+import com.bci.model.ResponseFields;
+import com.bci.model.TokenClaims;
 import com.bci.model.UserResponseDTO;
 import com.bci.model.UserSignUpRequestDTO;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +12,18 @@ import reactor.core.publisher.Mono;
 
 public interface LoginService {
 
-    Mono<ResponseEntity<Object>> login(String authHeader);
+    Mono<ResponseEntity<Object>> login(String authHeader, TokenClaims verifiedClaims);
     Mono<ResponseEntity<Object>> loginWithCredentials(LoginRequestDTO request);
+
+    /**
+     * Como {@link #login(String, TokenClaims)}, devolviendo sólo {@code fields}; sin teléfonos no se consultan.
+     */
+    Mono<ResponseEntity<Object>> login(String authHeader, TokenClaims verifiedClaims, ResponseFields fields);
+
+    /**
+     * Como {@link #loginWithCredentials(LoginRequestDTO)}, devolviendo sólo {@code fields}; sin teléfonos no se consultan.
+     */
+    Mono<ResponseEntity<Object>> loginWithCredentials(LoginRequestDTO request, ResponseFields fields);
+    Mono<ResponseEntity<Object>> refresh(RefreshTokenRequestDTO request);
+    Mono<ResponseEntity<Object>> logout(TokenClaims verifiedClaims, boolean allSessions);
 }
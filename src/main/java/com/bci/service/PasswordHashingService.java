@@ -0,0 +1,14 @@
+package com.bci.service;
+
+import reactor.core.publisher.Mono;
+
+public interface PasswordHashingService {
+
+    Mono<String> encode(CharSequence rawPassword);
+    Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword);
+
+    /**
+     * Indica si el hash guardado fue generado con otro algoritmo o costo y debe regenerarse.
+     */
+    boolean needsRehash(String encodedPassword);
+}
@@ -0,0 +1,11 @@
+package com.bci.service;
+
+/**
+ * Límites de frecuencia por cliente. Cada método devuelve {@code 0} si la solicitud se admite o, si no,
+ * los segundos que el cliente debe esperar antes de reintentar.
+ */
+public interface RateLimitService {
+
+    long tryAcquireForIp(String ip);
+    long tryAcquireForEmail(String email);
+}
@@ -0,0 +1,30 @@
+package com.bci.service;
+
+import com.bci.entity.User;
+import com.bci.model.RefreshSession;
+
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos guardados del lado del servidor. Cada token se puede usar una sola vez: al
+ * renovarlo se reemplaza por uno nuevo.
+ */
+public interface RefreshTokenService {
+
+    String issue(User user);
+
+    /**
+     * Devuelve la sesión asociada al token sin consumirlo, o lanza {@code InvalidTokenException}.
+     */
+    RefreshSession find(String refreshToken);
+
+    /**
+     * Invalida el token y emite uno nuevo para la misma sesión; falla si ya fue usado o expiró.
+     */
+    String rotate(String refreshToken);
+
+    /**
+     * Invalida todos los refresh tokens del usuario.
+     */
+    void revokeAll(UUID userId);
+}
@@ -0,0 +1,16 @@
+package com.bci.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtro probabilístico de emails registrados: un resultado negativo es definitivo, uno positivo
+ * debe confirmarse contra la base de datos.
+ */
+public interface RegisteredEmailFilter {
+
+    boolean mightContain(String email);
+    void add(String email);
+    Mono<Long> rebuild();
+    long approximateSize();
+    double expectedFalsePositiveRate();
+}
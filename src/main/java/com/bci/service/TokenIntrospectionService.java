@@ -0,0 +1,26 @@
+package com.bci.service;
+
+import com.bci.model.TokenIntrospectionDTO;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Verificación de tokens de sólo lectura para otros servicios: no reemite tokens ni escribe en la base
+ * de datos.
+ */
+public interface TokenIntrospectionService {
+
+    /**
+     * Devuelve un resultado por token, en el mismo orden. Con {@code checkUser} además se comprueba que el
+     * usuario siga existiendo y activo, lo que puede requerir una consulta si no está en la caché.
+     */
+    Flux<TokenIntrospectionDTO> introspect(Flux<String> tokens, boolean checkUser);
+
+    /**
+     * Variante para un arreglo JSON: responde la lista completa, o 400 si supera el máximo de tokens por solicitud.
+     */
+    Mono<ResponseEntity<Object>> introspectAll(List<String> tokens, boolean checkUser);
+}
@@ -0,0 +1,26 @@
+package com.bci.service;
+
+import com.bci.entity.User;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Caché de usuarios (con sus teléfonos) indexada por email. La implementación por defecto vive en memoria
+ * del proceso; basta con declarar otro bean {@code UserCache} para sustituirla por una caché compartida.
+ */
+public interface UserCache {
+
+    Mono<User> get(String email, Function<String, Mono<User>> loader);
+
+    /**
+     * Devuelve el usuario sólo si ya está en caché, sin cargarlo.
+     */
+    Mono<User> getIfPresent(String email);
+
+    /**
+     * Los usuarios cargados sin teléfonos ({@code phones} en {@code null}) no se guardan.
+     */
+    void put(User user);
+    void invalidate(String email);
+}
@@ -0,0 +1,10 @@
+package com.bci.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+
+public interface UserExportService {
+
+    Flux<DataBuffer> exportNdjson(DataBufferFactory bufferFactory);
+}
@@ -1,6 +1,7 @@
 package com.bci.service;
 
 
+import com.bci.model.ResponseFields;
 import com.bci.model.UserSignUpRequestDTO;
 import org.springframework.http.ResponseEntity;
 import reactor.core.publisher.Mono;
@@ -8,4 +9,10 @@ import reactor.core.publisher.Mono;
 public interface UserService {
     Mono<ResponseEntity<Object>> signUp(UserSignUpRequestDTO request);
 
+    /**
+     * @param idempotencyKey valor del header {@code Idempotency-Key}, o {@code null} si no se envió
+     * @param fields         campos a devolver; se aplican también a las respuestas repetidas por idempotencia
+     */
+    Mono<ResponseEntity<Object>> signUp(UserSignUpRequestDTO request, String idempotencyKey, ResponseFields fields);
+
 }
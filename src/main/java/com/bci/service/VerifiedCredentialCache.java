@@ -0,0 +1,17 @@
+package com.bci.service;
+
+import com.bci.entity.User;
+
+/**
+ * Recuerda por poco tiempo las verificaciones de contraseña exitosas para no repetir BCrypt cuando un
+ * cliente se autentica una y otra vez con las mismas credenciales. Nunca guarda la contraseña en claro.
+ */
+public interface VerifiedCredentialCache {
+
+    /**
+     * Indica si la contraseña ya se verificó contra el hash y el estado actuales del usuario.
+     */
+    boolean isVerified(User user, CharSequence rawPassword);
+    void recordVerified(User user, CharSequence rawPassword);
+    void invalidate(String email);
+}
@@ -0,0 +1,255 @@
+package com.bci.service.impl;
+
+import com.bci.entity.Phone;
+import com.bci.entity.User;
+import com.bci.mapper.UserMapper;
+import com.bci.metrics.StageMetrics;
+import com.bci.model.BulkSignUpResultDTO;
+import com.bci.model.BulkSignUpResultDTO.Status;
+import com.bci.model.UserSignUpRequestDTO;
+import com.bci.repository.PhoneRepository;
+import com.bci.repository.UserRepository;
+import com.bci.service.BulkSignUpService;
+import com.bci.service.PasswordHashingService;
+import com.bci.service.RegisteredEmailFilter;
+import com.bci.service.UserCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Registro masivo a partir de un flujo NDJSON. Las líneas se agrupan en lotes: por lote se hace una única
+ * consulta de emails existentes, los hashes BCrypt se calculan en paralelo con concurrencia acotada (a lo sumo
+ * un cuarto del pool de BCrypt, que comparten el registro y el login interactivos) y
+ * usuarios y teléfonos se insertan con un INSERT multi-fila cada uno. Si el INSERT del lote choca con un
+ * registro concurrente se reintenta fila por fila. Como los lotes se procesan de a uno y bajo demanda,
+ * la memoria no depende del tamaño de la entrada.
+ */
+@Slf4j
+@Service
+public class BulkSignUpServiceImpl implements BulkSignUpService {
+    private static final String EMAIL_REGISTERED = "Email already registered";
+
+    private final UserRepository userRepository;
+    private final PhoneRepository phoneRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final UserMapper userMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final UserCache userCache;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final StageMetrics stageMetrics;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final Duration maxBatchWait;
+    private final int hashConcurrency;
+
+    public BulkSignUpServiceImpl(UserRepository userRepository,
+                                 PhoneRepository phoneRepository,
+                                 PasswordHashingService passwordHashingService,
+                                 UserMapper userMapper,
+                                 TransactionalOperator transactionalOperator,
+                                 UserCache userCache,
+                                 RegisteredEmailFilter registeredEmailFilter,
+                                 StageMetrics stageMetrics,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${users.bulk-sign-up.batch-size:500}") int batchSize,
+                                 @Value("${users.bulk-sign-up.max-batch-wait:200ms}") Duration maxBatchWait,
+                                 @Value("${users.bulk-sign-up.hash-concurrency:0}") int hashConcurrency,
+                                 @Value("${security.password-hashing.pool-size:0}") int hashingPoolSize) {
+        this.userRepository = userRepository;
+        this.phoneRepository = phoneRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.userMapper = userMapper;
+        this.transactionalOperator = transactionalOperator;
+        this.userCache = userCache;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.stageMetrics = stageMetrics;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxBatchWait = maxBatchWait;
+        int hashingThreads = hashingPoolSize > 0 ? hashingPoolSize : Runtime.getRuntime().availableProcessors();
+        int maxHashConcurrency = Math.max(1, hashingThreads / 4);
+        this.hashConcurrency = hashConcurrency > 0 ? Math.min(hashConcurrency, maxHashConcurrency) : maxHashConcurrency;
+    }
+
+    @Override
+    public Flux<BulkSignUpResultDTO> bulkSignUp(Flux<String> lines) {
+        return lines
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1() + 1, line.getT2()))
+                .bufferTimeout(batchSize, maxBatchWait, true)
+                .concatMap(this::processBatch, 1);
+    }
+
+    private Entry parse(long line, String json) {
+        UserSignUpRequestDTO request;
+        try {
+            request = objectMapper.readValue(json, UserSignUpRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            request = null;
+        }
+        if (request == null) {
+            return Entry.rejected(BulkSignUpResultDTO.rejected(line, null, Status.INVALID, "Malformed JSON"));
+        }
+
+        Set<ConstraintViolation<UserSignUpRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return Entry.rejected(BulkSignUpResultDTO.rejected(line, request.getEmail(), Status.INVALID, message));
+        }
+
+        return new Entry(line, request, null);
+    }
+
+    private Flux<BulkSignUpResultDTO> processBatch(List<Entry> entries) {
+        BulkSignUpResultDTO[] results = new BulkSignUpResultDTO[entries.size()];
+        Map<String, Integer> firstByEmail = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.rejection() != null) {
+                results[i] = entry.rejection();
+            } else if (firstByEmail.putIfAbsent(entry.request().getEmail(), i) != null) {
+                results[i] = BulkSignUpResultDTO.rejected(entry.line(), entry.request().getEmail(), Status.CONFLICT,
+                        "Email repeated in the same request");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        Set<String> maybeRegistered = candidates.stream()
+                .map(i -> entries.get(i).request().getEmail())
+                .filter(registeredEmailFilter::mightContain)
+                .collect(Collectors.toSet());
+        Mono<Set<String>> existingEmails = maybeRegistered.isEmpty()
+                ? Mono.just(Set.of())
+                : stageMetrics.time("repository.find_existing_emails", StageMetrics.BULK_SIGN_UP,
+                        userRepository.findExistingEmails(maybeRegistered).collect(Collectors.toSet()));
+
+        return existingEmails
+                .flatMapMany(existing -> Flux.fromIterable(candidates)
+                        .filter(i -> {
+                            Entry entry = entries.get(i);
+                            if (existing.contains(entry.request().getEmail())) {
+                                results[i] = BulkSignUpResultDTO.rejected(entry.line(), entry.request().getEmail(),
+                                        Status.CONFLICT, EMAIL_REGISTERED);
+                                return false;
+                            }
+                            return true;
+                        }))
+                .flatMapSequential(i -> prepare(i, entries.get(i), results), hashConcurrency)
+                .collectList()
+                .flatMap(prepared -> insertBatch(prepared, results))
+                .thenMany(Flux.defer(() -> Flux.fromArray(results)));
+    }
+
+    private Mono<Prepared> prepare(int index, Entry entry, BulkSignUpResultDTO[] results) {
+        UserSignUpRequestDTO request = entry.request();
+        User user = userMapper.toEntity(request);
+        user.setId(UUID.randomUUID());
+        user.setCreated(LocalDateTime.now());
+        user.setIsActive(true);
+
+        List<Phone> phones = userMapper.phoneRequestDTOsToEntities(request.getPhones());
+        phones.forEach(phone -> phone.setUserId(user.getId()));
+
+        return stageMetrics.time("password.hash", StageMetrics.BULK_SIGN_UP, passwordHashingService.encode(request.getPassword()))
+                .map(encodedPassword -> {
+                    user.setPassword(encodedPassword);
+                    return new Prepared(index, entry.line(), user, phones);
+                })
+                .onErrorResume(e -> {
+                    results[index] = BulkSignUpResultDTO.rejected(entry.line(), request.getEmail(), Status.FAILED, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> insertBatch(List<Prepared> prepared, BulkSignUpResultDTO[] results) {
+        if (prepared.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<User> users = prepared.stream().map(Prepared::user).collect(Collectors.toList());
+        List<Phone> phones = prepared.stream().flatMap(p -> p.phones().stream()).collect(Collectors.toList());
+
+        Mono<Void> insert = userRepository.insertAll(users)
+                .thenMany(phoneRepository.insertAll(phones))
+                .then()
+                .as(transactionalOperator::transactional);
+
+        return stageMetrics.time("repository.insert", StageMetrics.BULK_SIGN_UP, insert)
+                .then(Mono.fromRunnable(() -> prepared.forEach(p -> created(p, results))))
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    log.warn("Batch insert of {} users failed, retrying row by row: {}", prepared.size(), e.getMessage());
+                    return Flux.fromIterable(prepared)
+                            .concatMap(p -> insertOne(p, results))
+                            .then();
+                })
+                .onErrorResume(e -> {
+                    log.error("Error inserting batch of {} users: {}", prepared.size(), e.getMessage());
+                    prepared.forEach(p -> results[p.index()] = BulkSignUpResultDTO.rejected(
+                            p.line(), p.user().getEmail(), Status.FAILED, e.getMessage()));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> insertOne(Prepared prepared, BulkSignUpResultDTO[] results) {
+        return userRepository.insert(prepared.user())
+                .thenMany(phoneRepository.insertAll(prepared.phones()))
+                .then()
+                .as(transactionalOperator::transactional)
+                .then(Mono.fromRunnable(() -> created(prepared, results)))
+                .onErrorResume(e -> {
+                    results[prepared.index()] = e instanceof DuplicateKeyException
+                            ? BulkSignUpResultDTO.rejected(prepared.line(), prepared.user().getEmail(), Status.CONFLICT, EMAIL_REGISTERED)
+                            : BulkSignUpResultDTO.rejected(prepared.line(), prepared.user().getEmail(), Status.FAILED, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void created(Prepared prepared, BulkSignUpResultDTO[] results) {
+        User user = prepared.user();
+        userCache.invalidate(user.getEmail());
+        registeredEmailFilter.add(user.getEmail());
+        results[prepared.index()] = BulkSignUpResultDTO.created(prepared.line(), user.getEmail(), user.getId());
+    }
+
+    private record Entry(long line, UserSignUpRequestDTO request, BulkSignUpResultDTO rejection) {
+
+        static Entry rejected(BulkSignUpResultDTO rejection) {
+            return new Entry(rejection.getLine(), null, rejection);
+        }
+    }
+
+    private record Prepared(int index, long line, User user, List<Phone> phones) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.bci.service.impl;
+
+import com.bci.entity.Phone;
+import com.bci.entity.User;
+import com.bci.service.UserCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria acotada por tamaño y TTL. Guarda y entrega copias de los usuarios para que las
+ * modificaciones de quien los consume (último login, token) no alteren el valor cacheado.
+ * <p>
+ * Los fallos concurrentes para un mismo email comparten una sola carga (con el loader del primero).
+ * Una carga en curso cuando se invalida su email no guarda su resultado, que puede ser anterior al cambio.
+ */
+public class CaffeineUserCache implements UserCache {
+    private final Cache<String, User> users;
+    private final SingleFlight<String, User> loads;
+    private final Map<String, Object> loading = new ConcurrentHashMap<>();
+
+    public CaffeineUserCache(long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        this.loads = new SingleFlight<>("user.lookup", meterRegistry);
+    }
+
+    @Override
+    public Mono<User> get(String email, Function<String, Mono<User>> loader) {
+        return Mono.defer(() -> {
+            User cached = users.getIfPresent(email);
+            if (cached != null) {
+                return Mono.just(copyOf(cached));
+            }
+
+            return loads.execute(email, key -> load(key, loader))
+                    .map(CaffeineUserCache::copyOf);
+        });
+    }
+
+    /**
+     * Registra un ticket por email al empezar; {@link #invalidate} lo retira, así que solo se guarda el
+     * resultado si el ticket sigue siendo el mismo. El chequeo y el guardado ocurren bajo el lock del mapa.
+     */
+    private Mono<User> load(String email, Function<String, Mono<User>> loader) {
+        return Mono.defer(() -> {
+            Object ticket = new Object();
+            loading.put(email, ticket);
+            return loader.apply(email)
+                    .doOnNext(user -> loading.computeIfPresent(email, (key, current) -> {
+                        if (current == ticket) {
+                            put(user);
+                        }
+                        return current;
+                    }))
+                    .doFinally(signal -> loading.remove(email, ticket));
+        });
+    }
+
+    @Override
+    public Mono<User> getIfPresent(String email) {
+        return Mono.fromSupplier(() -> {
+            User cached = users.getIfPresent(email);
+            return cached != null ? copyOf(cached) : null;
+        });
+    }
+
+    @Override
+    public void put(User user) {
+        if (user.getPhones() == null) {
+            return;
+        }
+        users.put(user.getEmail(), copyOf(user));
+    }
+
+    @Override
+    public void invalidate(String email) {
+        loading.compute(email, (key, ticket) -> {
+            users.invalidate(email);
+            return null;
+        });
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setCreated(user.getCreated());
+        copy.setLastLogin(user.getLastLogin());
+        copy.setToken(user.getToken());
+        copy.setTokenVersion(user.getTokenVersion());
+        copy.setIsActive(user.getIsActive());
+
+        List<Phone> phones = new ArrayList<>();
+        for (Phone phone : user.getPhones() != null ? user.getPhones() : List.<Phone>of()) {
+            Phone phoneCopy = new Phone();
+            phoneCopy.setId(phone.getId());
+            phoneCopy.setNumber(phone.getNumber());
+            phoneCopy.setCitycode(phone.getCitycode());
+            phoneCopy.setCountrycode(phone.getCountrycode());
+            phoneCopy.setUserId(phone.getUserId());
+            phones.add(phoneCopy);
+        }
+        copy.setPhones(phones);
+        return copy;
+    }
+}
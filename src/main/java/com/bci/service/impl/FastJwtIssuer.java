@@ -0,0 +1,255 @@
+package com.bci.service.impl;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Emisor de JWT HS256 o ES256 para el conjunto fijo de claims de la aplicación. El header es constante y
+ * se codifica una sola vez; el payload JSON, su Base64URL y la firma se escriben en buffers reutilizables
+ * por hilo, junto con un {@link Mac} o {@link Signature} por hilo. El resultado es un JWS compacto
+ * estándar que el parser de jjwt valida igual que los tokens generados con {@code Jwts.builder()}.
+ */
+public final class FastJwtIssuer {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    // R || S de 32 bytes cada uno, el formato que exige JWS (RFC 7518 §3.4) en lugar de DER.
+    private static final String ECDSA_ALGORITHM = "SHA256withECDSAinP1363Format";
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_SIGNATURE_LENGTH = 64;
+
+    private final byte[] header;
+    private final ThreadLocal<Buffers> buffers;
+
+    public FastJwtIssuer(Key key) {
+        this("{\"alg\":\"HS256\"}", () -> hmacSigner(key));
+    }
+
+    /**
+     * Emisor ES256 (P-256) cuyo header incluye el {@code kid} con el que el verificador elige la clave pública.
+     *
+     * @param kid identificador Base64URL, se escribe en el header sin escapar
+     */
+    public static FastJwtIssuer es256(String kid, PrivateKey privateKey) {
+        if (!kid.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Key id must be Base64URL: " + kid);
+        }
+        return new FastJwtIssuer("{\"alg\":\"ES256\",\"kid\":\"" + kid + "\"}", () -> ecdsaSigner(privateKey));
+    }
+
+    private FastJwtIssuer(String headerJson, Supplier<Signer> signers) {
+        this.header = (Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(headerJson.getBytes(StandardCharsets.UTF_8)) + '.')
+                .getBytes(StandardCharsets.US_ASCII);
+        // Falla al crear el emisor si la clave no sirve para el algoritmo.
+        signers.get();
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(signers.get()));
+    }
+
+    /**
+     * @param userId puede ser {@code null}; en ese caso no se incluye el claim
+     */
+    public String issue(String email, String userId, int tokenVersion, String tokenId,
+                        long issuedAtMillis, long expirationMillis) {
+        Buffers buffers = this.buffers.get();
+
+        int jsonBound = 160 + 12 * email.length() + 6 * (userId != null ? userId.length() : 0) + 6 * tokenId.length();
+        byte[] json = buffers.json(jsonBound);
+        int p = 0;
+        p = writeAscii(json, p, "{\"email\":");
+        p = writeString(json, p, email);
+        p = writeAscii(json, p, ",\"ver\":");
+        p = writeLong(json, p, tokenVersion);
+        if (userId != null) {
+            p = writeAscii(json, p, ",\"userId\":");
+            p = writeString(json, p, userId);
+        }
+        p = writeAscii(json, p, ",\"jti\":");
+        p = writeString(json, p, tokenId);
+        p = writeAscii(json, p, ",\"sub\":");
+        p = writeString(json, p, email);
+        p = writeAscii(json, p, ",\"iat\":");
+        p = writeLong(json, p, issuedAtMillis / 1000);
+        p = writeAscii(json, p, ",\"exp\":");
+        p = writeLong(json, p, expirationMillis / 1000);
+        json[p++] = '}';
+
+        byte[] out = buffers.out(header.length + (p + 2) / 3 * 4 + 1 + (MAX_SIGNATURE_LENGTH + 2) / 3 * 4);
+        System.arraycopy(header, 0, out, 0, header.length);
+        int length = encodeBase64Url(json, p, out, header.length);
+
+        byte[] signature = buffers.signer.sign(out, length);
+
+        out[length++] = '.';
+        length = encodeBase64Url(signature, signature.length, out, length);
+        return new String(out, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static int writeAscii(byte[] out, int p, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            out[p++] = (byte) value.charAt(i);
+        }
+        return p;
+    }
+
+    private static int writeLong(byte[] out, int p, long value) {
+        if (value < 0) {
+            out[p++] = '-';
+            value = -value;
+        }
+        int start = p;
+        do {
+            out[p++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = p - 1; i < j; i++, j--) {
+            byte tmp = out[i];
+            out[i] = out[j];
+            out[j] = tmp;
+        }
+        return p;
+    }
+
+    /**
+     * Cadena JSON en UTF-8 con los mismos escapes obligatorios que Jackson; los surrogates sueltos se
+     * reemplazan por {@code ?}, igual que {@link String#getBytes}.
+     */
+    private static int writeString(byte[] out, int p, String value) {
+        out[p++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[p++] = '\\';
+                out[p++] = (byte) c;
+            } else if (c < 0x20) {
+                out[p++] = '\\';
+                out[p++] = 'u';
+                out[p++] = '0';
+                out[p++] = '0';
+                out[p++] = HEX[c >> 4];
+                out[p++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                out[p++] = (byte) c;
+            } else if (c < 0x800) {
+                out[p++] = (byte) (0xC0 | (c >> 6));
+                out[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[p++] = (byte) (0xF0 | (codePoint >> 18));
+                out[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[p++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[p++] = '?';
+            } else {
+                out[p++] = (byte) (0xE0 | (c >> 12));
+                out[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[p++] = '"';
+        return p;
+    }
+
+    private static int encodeBase64Url(byte[] src, int length, byte[] out, int p) {
+        int i = 0;
+        for (; i + 3 <= length; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            out[p++] = BASE64URL[bits >>> 18];
+            out[p++] = BASE64URL[(bits >>> 12) & 0x3F];
+            out[p++] = BASE64URL[(bits >>> 6) & 0x3F];
+            out[p++] = BASE64URL[bits & 0x3F];
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xFF) << 16;
+            out[p++] = BASE64URL[bits >>> 18];
+            out[p++] = BASE64URL[(bits >>> 12) & 0x3F];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+            out[p++] = BASE64URL[bits >>> 18];
+            out[p++] = BASE64URL[(bits >>> 12) & 0x3F];
+            out[p++] = BASE64URL[(bits >>> 6) & 0x3F];
+        }
+        return p;
+    }
+
+    private static Signer hmacSigner(Key key) {
+        Mac mac;
+        try {
+            mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+        byte[] signature = new byte[mac.getMacLength()];
+        return (input, length) -> {
+            mac.update(input, 0, length);
+            try {
+                mac.doFinal(signature, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException("HMAC output buffer too small", e);
+            }
+            return signature;
+        };
+    }
+
+    private static Signer ecdsaSigner(PrivateKey privateKey) {
+        Signature ecdsa;
+        try {
+            ecdsa = Signature.getInstance(ECDSA_ALGORITHM);
+            ecdsa.initSign(privateKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA256withECDSA not available", e);
+        }
+        return (input, length) -> {
+            try {
+                ecdsa.update(input, 0, length);
+                return ecdsa.sign();
+            } catch (SignatureException e) {
+                throw new IllegalStateException("ECDSA signing failed", e);
+            }
+        };
+    }
+
+    /**
+     * Firma los primeros {@code length} bytes; el arreglo devuelto puede reutilizarse en la siguiente llamada.
+     */
+    @FunctionalInterface
+    private interface Signer {
+        byte[] sign(byte[] input, int length);
+    }
+
+    private static final class Buffers {
+        private final Signer signer;
+        private byte[] json = new byte[256];
+        private byte[] out = new byte[512];
+
+        private Buffers(Signer signer) {
+            this.signer = signer;
+        }
+
+        private byte[] json(int minLength) {
+            if (json.length < minLength) {
+                json = new byte[minLength];
+            }
+            return json;
+        }
+
+        private byte[] out(int minLength) {
+            if (out.length < minLength) {
+                out = new byte[minLength];
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bci.service.impl;
+
+import com.bci.exception.IdempotencyKeyMismatchException;
+import com.bci.service.IdempotencyService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Guarda en memoria, acotado por tamaño y TTL, la respuesta de cada clave junto con el HMAC de la solicitud
+ * (con una clave aleatoria, para no retener contraseñas). Mientras la operación está en curso la entrada
+ * contiene el {@link Mono} cacheado, así que los duplicados concurrentes se suscriben a él en vez de
+ * ejecutarla otra vez. Sólo se conservan resultados definitivos (2xx y 409): cualquier otro estado o error
+ * libera la clave para que el reintento vuelva a ejecutarse, porque un 400 o un 5xx puede venir de una falla
+ * transitoria.
+ * <p>
+ * Un 201 de registro lleva un access token, así que el TTL no puede superar {@code jwt.expiration}: si lo hiciera,
+ * un reintento tardío recibiría un token ya vencido. Un TTL mayor se recorta a ese valor.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec hmacKey;
+    private final Cache<String, Execution> executions;
+    private final Counter replayed;
+    private final Counter mismatched;
+
+    public IdempotencyServiceImpl(MeterRegistry meterRegistry,
+                                  @Value("${security.idempotency.enabled:true}") boolean enabled,
+                                  @Value("${security.idempotency.max-size:10000}") long maxSize,
+                                  @Value("${security.idempotency.ttl:15m}") Duration ttl,
+                                  @Value("${jwt.expiration:900000}") long tokenExpiration) {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+
+        this.enabled = enabled;
+        this.hmacKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        Duration maxTtl = Duration.ofMillis(tokenExpiration);
+        if (ttl.compareTo(maxTtl) > 0) {
+            log.warn("security.idempotency.ttl {} exceeds jwt.expiration, using {}", ttl, maxTtl);
+            ttl = maxTtl;
+        }
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "idempotency");
+        this.replayed = Counter.builder("bci.idempotency.requests")
+                .description("Solicitudes con Idempotency-Key resueltas sin ejecutar la operación")
+                .tag("result", "replayed")
+                .register(meterRegistry);
+        this.mismatched = Counter.builder("bci.idempotency.requests")
+                .description("Solicitudes con Idempotency-Key resueltas sin ejecutar la operación")
+                .tag("result", "mismatch")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> execute(String key, String request, Supplier<Mono<ResponseEntity<Object>>> operation) {
+        if (!enabled) {
+            return operation.get();
+        }
+
+        return Mono.defer(() -> {
+            ConcurrentMap<String, Execution> entries = executions.asMap();
+            Execution created = new Execution(hmac(request));
+            // Se asigna antes de publicar la entrada con putIfAbsent.
+            created.response = Mono.defer(operation)
+                    .doOnNext(response -> {
+                        if (!isFinal(response.getStatusCode())) {
+                            entries.remove(key, created);
+                        }
+                    })
+                    .doOnError(e -> entries.remove(key, created))
+                    .doOnCancel(() -> entries.remove(key, created))
+                    .cache();
+
+            Execution existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                return created.response;
+            }
+
+            if (!MessageDigest.isEqual(existing.requestHmac, created.requestHmac)) {
+                mismatched.increment();
+                return Mono.error(new IdempotencyKeyMismatchException("Idempotency-Key already used with a different request"));
+            }
+
+            replayed.increment();
+            log.debug("Replaying response for idempotency key");
+            return existing.response.map(IdempotencyServiceImpl::replayed);
+        });
+    }
+
+    private static boolean isFinal(HttpStatusCode status) {
+        return status.is2xxSuccessful() || status.value() == HttpStatus.CONFLICT.value();
+    }
+
+    private static ResponseEntity<Object> replayed(ResponseEntity<Object> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private byte[] hmac(String request) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac.doFinal(request.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static final class Execution {
+        private final byte[] requestHmac;
+        private Mono<ResponseEntity<Object>> response;
+
+        private Execution(byte[] requestHmac) {
+            this.requestHmac = requestHmac;
+        }
+    }
+}
@@ -2,67 +2,173 @@ package com.bci.service.impl;
 
 import com.bci.entity.User;
 import com.bci.exception.InvalidTokenException;
+import com.bci.model.JwkSetDTO;
+import com.bci.model.TokenClaims;
 import com.bci.service.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Service
 public class JwtServiceImpl implements JwtService {
+    private static final JwkSetDTO NO_PUBLIC_KEYS = new JwkSetDTO(List.of(), "\"hs256\"");
+
     private final Key key;
     private final long expiration;
+    private final JwtParser parser;
+    private final Cache<String, TokenClaims> verifiedTokens;
+    private final TokenDenylist denylist;
+    private final FastJwtIssuer issuer;
+    private final SigningKeyRing keyRing;
+    private final Date switchedToEs256At;
+    private final Date hs256AcceptedUntil;
+
+    public JwtServiceImpl(String secret, long expiration, long cacheMaxSize) {
+        this(secret, expiration, cacheMaxSize, SignatureAlgorithm.HS256.getValue(), Duration.ofDays(1));
+    }
 
+    /**
+     * Con {@code ES256} los tokens se firman con la clave activa de un {@link SigningKeyRing} y llevan su
+     * {@code kid}. Los HS256 se siguen aceptando solo si se emitieron antes del arranque y expiran dentro de un
+     * {@code jwt.expiration} desde entonces; pasado ese plazo el secreto compartido deja de servir para firmar.
+     */
+    @Autowired
     public JwtServiceImpl(@Value("${jwt.secret}") String secret,
-                          @Value("${jwt.expiration:86400000}") long expiration) {
+                          @Value("${jwt.expiration:900000}") long expiration,
+                          @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                          @Value("${jwt.signing.algorithm:HS256}") String algorithm,
+                          @Value("${jwt.signing.rotation-interval:24h}") Duration rotationInterval) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         this.key = Keys.hmacShaKeyFor(keyBytes);
         this.expiration = expiration;
+        this.keyRing = switch (SignatureAlgorithm.forName(algorithm)) {
+            case HS256 -> null;
+            case ES256 -> new SigningKeyRing(rotationInterval, Duration.ofMillis(expiration), Clock.systemUTC());
+            default -> throw new IllegalArgumentException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+        long startedAt = System.currentTimeMillis();
+        this.switchedToEs256At = keyRing != null ? new Date(startedAt) : null;
+        this.hs256AcceptedUntil = keyRing != null ? new Date(startedAt + expiration) : null;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyIdResolver())
+                .build();
+        this.verifiedTokens = cacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfter(new ExpireAtTokenExpiration())
+                        .build()
+                : null;
+        this.denylist = new TokenDenylist(Duration.ofMillis(expiration));
+        this.issuer = new FastJwtIssuer(key);
     }
 
     @Override
     public String generateToken(User user) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("email", user.getEmail());
+        long now = System.currentTimeMillis();
+        FastJwtIssuer signer = keyRing != null ? keyRing.current().issuer() : issuer;
+        return signer.issue(
+                user.getEmail(),
+                user.getId() != null ? user.getId().toString() : null,
+                user.getTokenVersion() != null ? user.getTokenVersion() : 0,
+                newTokenId(),
+                now,
+                now + expiration);
+    }
 
-        if (user.getId() != null) {
-            claims.put("userId", user.getId().toString());
+    @Override
+    public String validateTokenAndGetEmail(String token) {
+        return validateToken(token).getEmail();
+    }
+
+    @Override
+    public TokenClaims validateToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new InvalidTokenException("Token validation failed");
         }
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(user.getEmail())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        TokenClaims claims = verifiedClaims(token);
+        if (denylist.isRevoked(claims)) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+        return claims;
     }
 
     @Override
-    public String validateTokenAndGetEmail(String token) {
+    public void revoke(TokenClaims claims) {
+        denylist.revoke(claims.getTokenId(), claims.getExpiration());
+    }
+
+    @Override
+    public void revokeVersionsBefore(String userId, int minimumVersion) {
+        denylist.revokeVersionsBefore(userId, minimumVersion);
+    }
+
+    @Override
+    public JwkSetDTO publicKeys() {
+        return keyRing != null ? keyRing.jwks() : NO_PUBLIC_KEYS;
+    }
+
+    private TokenClaims verifiedClaims(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+
+        String cacheKey = digest(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && cached.getExpiration().isAfter(Instant.now())) {
+            return cached;
+        }
+
+        TokenClaims claims = parse(token);
+        verifiedTokens.put(cacheKey, claims);
+        return claims;
+    }
+
+    private TokenClaims parse(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
 
             if (claims.getExpiration().before(new Date())) {
                 throw new InvalidTokenException("Token has expired");
             }
 
-            return claims.getSubject();
+            Integer tokenVersion = claims.get("ver", Integer.class);
+            return new TokenClaims(
+                    claims.getSubject(),
+                    claims.get("userId", String.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant(),
+                    claims.getId(),
+                    tokenVersion != null ? tokenVersion : 0
+            );
         } catch (JwtException e) {
             log.error("JWT validation error: {}", e.getMessage());
             throw new InvalidTokenException("Invalid token: " + e.getMessage());
@@ -71,4 +177,83 @@ public class JwtServiceImpl implements JwtService {
             throw new InvalidTokenException("Token validation failed");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * El {@code jti} sólo tiene que ser único, no impredecible (el token va firmado), así que se evita el
+     * {@code SecureRandom} de {@link UUID#randomUUID()}.
+     */
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Elige la clave de verificación según el header: el secreto para HS256 y la clave pública del
+     * {@code kid} para ES256. Cualquier otro algoritmo o un {@code kid} desconocido (o ya retirado) se rechaza.
+     * En modo ES256 un HS256 solo vale si se emitió antes del cambio y no vive más allá del período de gracia.
+     */
+    private final class KeyIdResolver extends SigningKeyResolverAdapter {
+
+        /**
+         * La firma sin tipo la impone {@link SigningKeyResolverAdapter} en jjwt 0.11.
+         */
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            return resolve(header, claims);
+        }
+
+        private Key resolve(JwsHeader<?> header, Claims claims) {
+            String algorithm = header.getAlgorithm();
+            if (SignatureAlgorithm.HS256.getValue().equals(algorithm)) {
+                if (keyRing == null || isLegacyHs256(claims)) {
+                    return key;
+                }
+                throw new UnsupportedJwtException("HS256 tokens are no longer accepted");
+            }
+            if (keyRing != null && SignatureAlgorithm.ES256.getValue().equals(algorithm) && header.getKeyId() != null) {
+                PublicKey publicKey = keyRing.verificationKey(header.getKeyId());
+                if (publicKey != null) {
+                    return publicKey;
+                }
+            }
+            throw new UnsupportedJwtException("Unknown signing key: " + algorithm + "/" + header.getKeyId());
+        }
+
+        private boolean isLegacyHs256(Claims claims) {
+            return claims.getIssuedAt() != null && !claims.getIssuedAt().after(switchedToEs256At)
+                    && claims.getExpiration() != null && !claims.getExpiration().after(hs256AcceptedUntil);
+        }
+    }
+
+    /**
+     * Cada token verificado se descarta de la caché en el instante de su claim {@code exp}.
+     */
+    private static final class ExpireAtTokenExpiration implements Expiry<String, TokenClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, TokenClaims value, long currentTime) {
+            return Math.max(0L, Duration.between(Instant.now(), value.getExpiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
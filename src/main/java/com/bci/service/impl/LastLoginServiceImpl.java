@@ -0,0 +1,125 @@
+package com.bci.service.impl;
+
+import com.bci.entity.User;
+import com.bci.repository.UserRepository;
+import com.bci.repository.UserRepositoryCustom.LastLogin;
+import com.bci.service.LastLoginService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acumula en memoria el último inicio de sesión de cada usuario y lo escribe en lotes periódicos,
+ * de modo que el login no espera ninguna escritura en la base de datos.
+ */
+@Slf4j
+@Service
+public class LastLoginServiceImpl implements LastLoginService {
+    private final UserRepository userRepository;
+    private final int maxBatchSize;
+    private final Duration shutdownTimeout;
+    private final Map<UUID, LastLogin> pending = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+    private final Counter writtenCounter;
+    private final Disposable flusher;
+
+    public LastLoginServiceImpl(UserRepository userRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${users.last-login.flush-interval:5s}") Duration flushInterval,
+                                @Value("${users.last-login.max-batch-size:500}") int maxBatchSize,
+                                @Value("${users.last-login.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.userRepository = userRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("bci.last.login.pending", pending, Map::size)
+                .description("Actualizaciones de last_login pendientes de escribir")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("bci.last.login.coalesced").register(meterRegistry);
+        this.writtenCounter = Counter.builder("bci.last.login.written").register(meterRegistry);
+
+        this.flusher = Flux.interval(flushInterval, flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void record(User user) {
+        LastLogin update = new LastLogin(user.getId(), user.getLastLogin());
+        if (pending.putIfAbsent(user.getId(), update) != null) {
+            pending.merge(user.getId(), update, LastLoginServiceImpl::latest);
+            coalescedCounter.increment();
+        }
+    }
+
+    /**
+     * Si el flush se cancela (por ejemplo al apagarse), todo lo drenado vuelve a {@code pending}; lo que ya se
+     * había escrito se repite con el mismo valor, lo que es inofensivo.
+     */
+    @Override
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            List<LastLogin> drained = drain();
+            return Flux.fromIterable(drained)
+                    .buffer(maxBatchSize)
+                    .concatMap(this::write)
+                    .reduce(0L, Long::sum)
+                    .doOnCancel(() -> requeue(drained));
+        });
+    }
+
+    private List<LastLogin> drain() {
+        List<LastLogin> drained = new ArrayList<>();
+        for (UUID userId : pending.keySet()) {
+            LastLogin update = pending.remove(userId);
+            if (update != null) {
+                drained.add(update);
+            }
+        }
+        return drained;
+    }
+
+    private Mono<Long> write(List<LastLogin> batch) {
+        return userRepository.updateLastLogins(batch)
+                .doOnNext(rows -> writtenCounter.increment(rows))
+                .onErrorResume(e -> {
+                    log.error("Error writing {} last login updates, they will be retried: {}", batch.size(), e.getMessage());
+                    requeue(batch);
+                    return Mono.just(0L);
+                });
+    }
+
+    private void requeue(List<LastLogin> updates) {
+        updates.forEach(update -> pending.merge(update.userId(), update, LastLoginServiceImpl::latest));
+    }
+
+    private static LastLogin latest(LastLogin current, LastLogin candidate) {
+        return candidate.lastLogin().isBefore(current.lastLogin()) ? current : candidate;
+    }
+
+    /**
+     * Cancelar el flusher devuelve a {@code pending} el lote que estuviera escribiéndose, así que el flush
+     * final también lo incluye.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.dispose();
+        Long written = flush().block(shutdownTimeout);
+        log.info("Flushed {} pending last login updates on shutdown", written);
+    }
+}
@@ -2,30 +2,45 @@ package com.bci.service.impl;
 
 import com.bci.entity.Phone;
 import com.bci.entity.User;
+import com.bci.exception.DatabaseBusyException;
+import com.bci.exception.InvalidTokenException;
+import com.bci.exception.ServiceUnavailableException;
+import com.bci.exception.TooManyRequestsException;
 import com.bci.exception.UserExistsException;
 import com.bci.exception.UserNotFoundException;
 import com.bci.exception.ValidationException;
 import com.bci.mapper.UserMapper;
+import com.bci.metrics.StageMetrics;
 import com.bci.model.ErrorResponseDTO;
 import com.bci.model.LoginRequestDTO;
+import com.bci.model.RefreshTokenRequestDTO;
+import com.bci.model.ResponseFields;
+import com.bci.model.TokenClaims;
+import com.bci.model.TokenResponseDTO;
 import com.bci.model.UserResponseDTO;
 import com.bci.model.UserSignUpRequestDTO;
-import com.bci.repository.PhoneRepository;
 import com.bci.repository.UserRepository;
 import com.bci.service.JwtService;
+import com.bci.service.LastLoginService;
 import com.bci.service.LoginService;
+import com.bci.service.PasswordHashingService;
+import com.bci.service.RateLimitService;
+import com.bci.service.RefreshTokenService;
+import com.bci.service.UserCache;
 import com.bci.service.UserService;
+import com.bci.service.VerifiedCredentialCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,13 +48,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LoginServiceImpl implements LoginService {
     private final UserRepository userRepository;
-    private final PhoneRepository phoneRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final UserMapper userMapper;
+    private final LastLoginService lastLoginService;
+    private final UserCache userCache;
+    private final StageMetrics stageMetrics;
+    private final RateLimitService rateLimitService;
+    private final VerifiedCredentialCache verifiedCredentialCache;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
-    public Mono<ResponseEntity<Object>> login(String authHeader) {
+    public Mono<ResponseEntity<Object>> login(String authHeader, TokenClaims verifiedClaims) {
+        return login(authHeader, verifiedClaims, ResponseFields.all());
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> login(String authHeader, TokenClaims verifiedClaims, ResponseFields fields) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             ErrorResponseDTO errorResponse = new ErrorResponseDTO("Authorization header required");
             return Mono.just(ResponseEntity
@@ -48,10 +73,15 @@ public class LoginServiceImpl implements LoginService {
         }
 
         String token = authHeader.substring(7);
-        return processLogin(token)
-                .map(userResponse -> ResponseEntity.ok((Object) userResponse))
+        return processLogin(token, verifiedClaims, fields.includesPhones())
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
+                .map(userResponse -> fields.applyTo(ResponseEntity.ok((Object) userResponse)))
                 .onErrorResume(e -> {
                     log.error("Error during login: {}", e.getMessage());
+
+                    if (e instanceof ServiceUnavailableException unavailable) {
+                        return serviceUnavailable(unavailable);
+                    }
                     ErrorResponseDTO errorResponse = new ErrorResponseDTO(e.getMessage());
                     return Mono.just(ResponseEntity
                             .status(HttpStatus.UNAUTHORIZED)
@@ -59,32 +89,41 @@ public class LoginServiceImpl implements LoginService {
                 });
     }
 
-    private Mono<UserResponseDTO> processLogin(String token) {
-        return Mono.fromCallable(() -> jwtService.validateTokenAndGetEmail(token))
-                .flatMap(email -> userRepository.findByEmail(email))
-                .flatMap(user -> {
-                    user.setLastLogin(LocalDateTime.now());
-                    user.setToken(jwtService.generateToken(user));
-
-                    return userRepository.save(user)
-                            .flatMap(savedUser -> phoneRepository.findByUserId(savedUser.getId())
-                                    .collectList()
-                                    .map(phones -> {
-                                        savedUser.setPhones(phones);
-                                        return userMapper.toDTO(savedUser);
-                                    })
-                            );
-                })
+    private Mono<UserResponseDTO> processLogin(String token, TokenClaims verifiedClaims, boolean includePhones) {
+        Mono<String> emailMono = verifiedClaims != null
+                ? Mono.just(verifiedClaims.getEmail())
+                : stageMetrics.time("token.verify", StageMetrics.LOGIN_VALIDATE,
+                        Mono.fromCallable(() -> jwtService.validateTokenAndGetEmail(token)));
+
+        return emailMono
+                .flatMap(email -> findUser(email, StageMetrics.LOGIN_VALIDATE, includePhones))
+                .flatMap(user -> completeLogin(user, StageMetrics.LOGIN_VALIDATE))
                 .switchIfEmpty(Mono.error(new UserNotFoundException("User not found")));
     }
 
     @Override
     public Mono<ResponseEntity<Object>> loginWithCredentials(LoginRequestDTO request) {
-        return processLoginWithCredentials(request)
-                .map(userResponse -> ResponseEntity.ok((Object) userResponse))
+        return loginWithCredentials(request, ResponseFields.all());
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> loginWithCredentials(LoginRequestDTO request, ResponseFields fields) {
+        return processLoginWithCredentials(request, fields.includesPhones())
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
+                .map(userResponse -> fields.applyTo(ResponseEntity.ok((Object) userResponse)))
                 .onErrorResume(e -> {
                     log.error("Error during credentials login: {}", e.getMessage());
 
+                    if (e instanceof TooManyRequestsException tooManyRequests) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(tooManyRequests.getRetryAfterSeconds()))
+                                .body((Object) new ErrorResponseDTO(e.getMessage())));
+                    }
+
+                    if (e instanceof ServiceUnavailableException unavailable) {
+                        return serviceUnavailable(unavailable);
+                    }
+
                     HttpStatus status = HttpStatus.UNAUTHORIZED;
                     if (e instanceof UserNotFoundException) {
                         status = HttpStatus.NOT_FOUND;
@@ -99,30 +138,168 @@ public class LoginServiceImpl implements LoginService {
                 });
     }
 
-    private Mono<UserResponseDTO> processLoginWithCredentials(LoginRequestDTO request) {
-        return userRepository.findByEmail(request.getEmail())
-                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found with email: " + request.getEmail())))
-                .flatMap(user -> {
-                    if (!user.getIsActive()) {
-                        return Mono.error(new ValidationException("User account is disabled"));
+    @Override
+    public Mono<ResponseEntity<Object>> refresh(RefreshTokenRequestDTO request) {
+        return processRefresh(request.getRefreshToken())
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
+                .map(tokens -> ResponseEntity.ok((Object) tokens))
+                .onErrorResume(e -> {
+                    log.error("Error during token refresh: {}", e.getMessage());
+
+                    if (e instanceof ServiceUnavailableException unavailable) {
+                        return serviceUnavailable(unavailable);
                     }
+                    return Mono.just(ResponseEntity
+                            .status(HttpStatus.UNAUTHORIZED)
+                            .body((Object) new ErrorResponseDTO(e.getMessage())));
+                });
+    }
+
+    /**
+     * Renueva la sesión sin BCrypt ni escrituras: sólo se comprueba que el usuario siga existiendo y activo.
+     * El refresh token se consume al final, para que un fallo de la base de datos no deje al cliente sin
+     * token válido.
+     */
+    private Mono<TokenResponseDTO> processRefresh(String refreshToken) {
+        return Mono.fromCallable(() -> refreshTokenService.find(refreshToken))
+                .flatMap(session -> findUser(session.getEmail(), StageMetrics.LOGIN_REFRESH)
+                        .filter(user -> user.getId().equals(session.getUserId()) && Boolean.TRUE.equals(user.getIsActive())))
+                .switchIfEmpty(Mono.error(new InvalidTokenException("Invalid refresh token")))
+                .map(user -> {
+                    String rotated = refreshTokenService.rotate(refreshToken);
+                    String token = stageMetrics.time("token.sign", StageMetrics.LOGIN_REFRESH, () -> jwtService.generateToken(user));
+                    return new TokenResponseDTO(token, rotated);
+                });
+    }
 
-                    if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+    /**
+     * Revoca el token presentado. Con {@code allSessions} además incrementa la versión de token del usuario,
+     * con lo que quedan revocados todos sus tokens de acceso, y descarta sus refresh tokens.
+     */
+    @Override
+    public Mono<ResponseEntity<Object>> logout(TokenClaims verifiedClaims, boolean allSessions) {
+        if (verifiedClaims == null) {
+            return Mono.just(ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body((Object) new ErrorResponseDTO("Authorization header required")));
+        }
+
+        jwtService.revoke(verifiedClaims);
+        if (!allSessions || verifiedClaims.getUserId() == null) {
+            return Mono.just(ResponseEntity.noContent().build());
+        }
+
+        UUID userId = UUID.fromString(verifiedClaims.getUserId());
+        return userRepository.incrementTokenVersion(userId)
+                .then(userRepository.findTokenVersion(userId))
+                .doOnNext(tokenVersion -> {
+                    jwtService.revokeVersionsBefore(verifiedClaims.getUserId(), tokenVersion);
+                    refreshTokenService.revokeAll(userId);
+                    userCache.invalidate(verifiedClaims.getEmail());
+                })
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
+                .then(Mono.just(ResponseEntity.noContent().<Object>build()))
+                .onErrorResume(e -> {
+                    log.error("Error revoking sessions for user {}: {}", userId, e.getMessage());
+
+                    if (e instanceof ServiceUnavailableException unavailable) {
+                        return serviceUnavailable(unavailable);
+                    }
+                    return Mono.just(ResponseEntity
+                            .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body((Object) new ErrorResponseDTO("An unexpected error occurred")));
+                });
+    }
+
+    private Mono<ResponseEntity<Object>> serviceUnavailable(ServiceUnavailableException e) {
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body((Object) new ErrorResponseDTO(e.getMessage())));
+    }
+
+    private Mono<UserResponseDTO> processLoginWithCredentials(LoginRequestDTO request, boolean includePhones) {
+        return Mono.defer(() -> {
+            long retryAfterSeconds = rateLimitService.tryAcquireForEmail(request.getEmail());
+            if (retryAfterSeconds > 0) {
+                return Mono.error(new TooManyRequestsException("Too many requests", retryAfterSeconds));
+            }
+
+            return findUser(request.getEmail(), StageMetrics.LOGIN_AUTHENTICATE, includePhones)
+                    .switchIfEmpty(Mono.error(new UserNotFoundException("User not found with email: " + request.getEmail())))
+                    .flatMap(user -> verifyCredentials(user, request)
+                            .map(userResponse -> userResponse.withRefreshToken(refreshTokenService.issue(user))));
+        });
+    }
+
+    private Mono<UserResponseDTO> verifyCredentials(User user, LoginRequestDTO request) {
+        if (!user.getIsActive()) {
+            return Mono.error(new ValidationException("User account is disabled"));
+        }
+
+        if (verifiedCredentialCache.isVerified(user, request.getPassword())) {
+            return completeLogin(user, StageMetrics.LOGIN_AUTHENTICATE);
+        }
+
+        return stageMetrics.time("password.verify", StageMetrics.LOGIN_AUTHENTICATE,
+                        passwordHashingService.matches(request.getPassword(), user.getPassword()))
+                .flatMap(matches -> {
+                    if (!matches) {
                         return Mono.error(new ValidationException("Invalid password"));
                     }
 
-                    String newToken = jwtService.generateToken(user);
-                    user.setToken(newToken);
-                    user.setLastLogin(LocalDateTime.now());
-
-                    return userRepository.save(user)
-                            .flatMap(savedUser -> phoneRepository.findByUserId(savedUser.getId())
-                                    .collectList()
-                                    .map(phones -> {
-                                        savedUser.setPhones(phones);
-                                        return userMapper.toDTO(savedUser);
-                                    })
-                            );
+                    if (!rehashIfNeeded(user, request.getPassword())) {
+                        verifiedCredentialCache.recordVerified(user, request.getPassword());
+                    }
+                    return completeLogin(user, StageMetrics.LOGIN_AUTHENTICATE);
                 });
     }
+
+    /**
+     * Regenera en segundo plano el hash de una contraseña recién verificada cuando fue generado con otro
+     * costo; el login no espera. Si el pool de BCrypt está saturado se reintenta en el próximo login.
+     * Devuelve {@code true} si se inició el rehash.
+     */
+    private boolean rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return false;
+        }
+
+        passwordHashingService.encode(rawPassword)
+                .flatMap(encodedPassword -> userRepository.updatePassword(user.getId(), encodedPassword))
+                .doOnSuccess(updated -> {
+                    userCache.invalidate(user.getEmail());
+                    verifiedCredentialCache.invalidate(user.getEmail());
+                })
+                .subscribe(
+                        updated -> log.debug("Password rehashed for user {}", user.getId()),
+                        e -> log.warn("Could not rehash password for user {}: {}", user.getId(), e.getMessage()));
+        return true;
+    }
+
+    private Mono<User> findUser(String email, String endpoint) {
+        return userCache.get(email, key -> stageMetrics.time("repository.find_user", endpoint,
+                userRepository.findWithPhonesByEmail(key)));
+    }
+
+    /**
+     * Sin teléfonos se aprovecha un usuario ya cacheado, pero un fallo de caché lee sólo la fila del usuario
+     * (sin el join con {@code phones}) y el resultado no se cachea.
+     */
+    private Mono<User> findUser(String email, String endpoint, boolean includePhones) {
+        if (includePhones) {
+            return findUser(email, endpoint);
+        }
+        return userCache.getIfPresent(email)
+                .switchIfEmpty(Mono.defer(() -> stageMetrics.time("repository.find_user", endpoint,
+                        userRepository.findWithoutPhonesByEmail(email))));
+    }
+
+    private Mono<UserResponseDTO> completeLogin(User user, String endpoint) {
+        user.setLastLogin(LocalDateTime.now());
+        user.setToken(stageMetrics.time("token.sign", endpoint, () -> jwtService.generateToken(user)));
+        lastLoginService.record(user);
+        userCache.put(user);
+
+        return Mono.just(stageMetrics.time("mapping", endpoint, () -> userMapper.toDTO(user)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.bci.service.impl;
+
+import com.bci.exception.ServiceUnavailableException;
+import com.bci.service.PasswordHashingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta BCrypt en un pool dedicado para no bloquear los event loops de Netty.
+ * Cuando la cola está llena la solicitud se rechaza de inmediato con 503. Las verificaciones concurrentes
+ * de la misma contraseña contra el mismo hash (reintentos de un cliente) comparten una sola ejecución.
+ */
+@Slf4j
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+    private final SingleFlight<CredentialCheck, Boolean> credentialChecks;
+
+    public PasswordHashingServiceImpl(PasswordEncoder passwordEncoder,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${security.password-hashing.pool-size:0}") int poolSize,
+                                      @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                      @Value("${security.password-hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("bci.password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Operaciones BCrypt en espera")
+                .register(meterRegistry);
+        Gauge.builder("bci.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operaciones BCrypt en ejecución")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("bci.password.hashing.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("bci.password.hashing.duration")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bci.password.hashing.rejected")
+                .register(meterRegistry);
+        this.credentialChecks = new SingleFlight<>("password.matches", meterRegistry);
+
+        log.info("Password hashing pool initialized with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+
+    @Override
+    public Mono<String> encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return credentialChecks.execute(new CredentialCheck(rawPassword != null ? rawPassword.toString() : null, encodedPassword),
+                check -> submit(matchesTimer, () -> passwordEncoder.matches(check.rawPassword(), check.encodedPassword())));
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * El resultado se entrega en {@link Schedulers#parallel()}: lo que sigue (inserción, mapeo, serialización)
+     * no debe ocupar los hilos del pool de BCrypt.
+     */
+    private <T> Mono<T> submit(Timer timer, Supplier<T> task) {
+        return Mono.<T>create(sink -> {
+            try {
+                Future<?> future = executor.submit(() -> {
+                    try {
+                        sink.success(timer.record(task));
+                    } catch (Throwable e) {
+                        sink.error(e);
+                    }
+                });
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                log.warn("Password hashing queue is full, rejecting request");
+                sink.error(new ServiceUnavailableException("Server busy, please retry later", retryAfterSeconds));
+            }
+        }).publishOn(Schedulers.parallel());
+    }
+
+    private record CredentialCheck(String rawPassword, String encodedPassword) {
+
+        @Override
+        public String toString() {
+            return "CredentialCheck[" + encodedPassword + "]";
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,71 @@
+package com.bci.service.impl;
+
+import com.bci.service.RateLimitService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class RateLimitServiceImpl implements RateLimitService {
+    private final boolean enabled;
+    private final TokenBuckets ipBuckets;
+    private final TokenBuckets emailBuckets;
+    private final Counter ipRejections;
+    private final Counter emailRejections;
+
+    public RateLimitServiceImpl(MeterRegistry meterRegistry,
+                                @Value("${security.rate-limit.enabled:true}") boolean enabled,
+                                @Value("${security.rate-limit.ip.permits-per-second:5}") double ipPermitsPerSecond,
+                                @Value("${security.rate-limit.ip.burst:20}") int ipBurst,
+                                @Value("${security.rate-limit.email.permits-per-second:0.2}") double emailPermitsPerSecond,
+                                @Value("${security.rate-limit.email.burst:5}") int emailBurst,
+                                @Value("${security.rate-limit.max-keys:100000}") long maxKeys,
+                                @Value("${security.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this.enabled = enabled;
+        this.ipBuckets = new TokenBuckets(ipPermitsPerSecond, ipBurst, maxKeys, idleTimeout);
+        this.emailBuckets = new TokenBuckets(emailPermitsPerSecond, emailBurst, maxKeys, idleTimeout);
+
+        this.ipRejections = Counter.builder("bci.rate.limit.rejected")
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        this.emailRejections = Counter.builder("bci.rate.limit.rejected")
+                .tag("scope", "email")
+                .register(meterRegistry);
+        Gauge.builder("bci.rate.limit.keys", ipBuckets, TokenBuckets::size)
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        Gauge.builder("bci.rate.limit.keys", emailBuckets, TokenBuckets::size)
+                .tag("scope", "email")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long tryAcquireForIp(String ip) {
+        return tryAcquire(ipBuckets, ipRejections, ip);
+    }
+
+    @Override
+    public long tryAcquireForEmail(String email) {
+        return tryAcquire(emailBuckets, emailRejections, email != null ? email.toLowerCase(Locale.ROOT) : null);
+    }
+
+    private long tryAcquire(TokenBuckets buckets, Counter rejections, String key) {
+        if (!enabled || key == null) {
+            return 0L;
+        }
+
+        long waitNanos = buckets.tryAcquire(key);
+        if (waitNanos == 0L) {
+            return 0L;
+        }
+
+        rejections.increment();
+        return Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,107 @@
+package com.bci.service.impl;
+
+import com.bci.entity.User;
+import com.bci.exception.InvalidTokenException;
+import com.bci.model.RefreshSession;
+import com.bci.service.RefreshTokenService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Guarda en memoria sólo el SHA-256 de cada refresh token junto con el usuario al que pertenece; las
+ * entradas expiran solas al cumplirse su TTL. La rotación elimina la entrada de forma atómica, de modo
+ * que de dos renovaciones concurrentes con el mismo token sólo una tiene éxito.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, RefreshSession> sessions;
+    private final Counter issuedCounter;
+    private final Counter rotatedCounter;
+    private final Counter rejectedCounter;
+
+    public RefreshTokenServiceImpl(MeterRegistry meterRegistry,
+                                   @Value("${jwt.refresh.ttl:14d}") Duration ttl,
+                                   @Value("${jwt.refresh.max-size:100000}") long maxSize) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        Gauge.builder("bci.refresh.tokens", sessions, Cache::estimatedSize)
+                .description("Refresh tokens vigentes")
+                .register(meterRegistry);
+        this.issuedCounter = Counter.builder("bci.refresh.tokens.issued").register(meterRegistry);
+        this.rotatedCounter = Counter.builder("bci.refresh.tokens.rotated").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bci.refresh.tokens.rejected").register(meterRegistry);
+    }
+
+    @Override
+    public String issue(User user) {
+        return store(new RefreshSession(user.getId(), user.getEmail()));
+    }
+
+    @Override
+    public RefreshSession find(String refreshToken) {
+        RefreshSession session = refreshToken != null ? sessions.getIfPresent(digest(refreshToken)) : null;
+        if (session == null) {
+            rejectedCounter.increment();
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        return session;
+    }
+
+    @Override
+    public String rotate(String refreshToken) {
+        RefreshSession session = refreshToken != null ? sessions.asMap().remove(digest(refreshToken)) : null;
+        if (session == null) {
+            rejectedCounter.increment();
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        rotatedCounter.increment();
+        return store(session);
+    }
+
+    /**
+     * Recorre todas las sesiones; es aceptable porque sólo se usa al cerrar todas las sesiones de un usuario.
+     */
+    @Override
+    public void revokeAll(UUID userId) {
+        sessions.asMap().values().removeIf(session -> session.getUserId().equals(userId));
+    }
+
+    private String store(RefreshSession session) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        sessions.put(digest(token), session);
+        issuedCounter.increment();
+        return token;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
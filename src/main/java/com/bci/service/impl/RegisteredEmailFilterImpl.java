@@ -0,0 +1,115 @@
+package com.bci.service.impl;
+
+import com.bci.repository.UserRepository;
+import com.bci.service.RegisteredEmailFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mantiene un filtro de Bloom con los emails de la tabla {@code users}. Mientras no se haya construido
+ * responde siempre "posible", de modo que nunca se omite una verificación necesaria. Durante una
+ * reconstrucción los emails nuevos se agregan tanto al filtro vigente como al que se está construyendo.
+ */
+@Slf4j
+@Service
+public class RegisteredEmailFilterImpl implements RegisteredEmailFilter {
+    private final UserRepository userRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Timer rebuildTimer;
+    private volatile BloomFilter current;
+    private volatile BloomFilter next;
+
+    public RegisteredEmailFilterImpl(UserRepository userRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                     @Value("${users.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        Gauge.builder("bci.email.filter.size", this, RegisteredEmailFilter::approximateSize)
+                .description("Emails agregados al filtro de Bloom")
+                .register(meterRegistry);
+        Gauge.builder("bci.email.filter.fpp", this, RegisteredEmailFilter::expectedFalsePositiveRate)
+                .description("Probabilidad estimada de falso positivo del filtro de Bloom")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("bci.email.filter.rebuild")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild().subscribe(
+                count -> { },
+                e -> log.error("Error building registered email filter: {}", e.getMessage()));
+    }
+
+    @Override
+    public boolean mightContain(String email) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(email);
+    }
+
+    @Override
+    public void add(String email) {
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(email);
+        }
+        BloomFilter building = next;
+        if (building != null) {
+            building.put(email);
+        }
+    }
+
+    @Override
+    public Mono<Long> rebuild() {
+        return Mono.defer(() -> {
+            if (!rebuilding.compareAndSet(false, true)) {
+                return Mono.error(new IllegalStateException("Registered email filter rebuild already in progress"));
+            }
+
+            Timer.Sample sample = Timer.start();
+            return userRepository.count()
+                    .flatMap(users -> {
+                        BloomFilter building = new BloomFilter(Math.max(expectedInsertions, users * 2), falsePositiveRate);
+                        next = building;
+                        return userRepository.findAllEmails()
+                                .doOnNext(building::put)
+                                .count()
+                                .doOnNext(count -> {
+                                    current = building;
+                                    long nanos = sample.stop(rebuildTimer);
+                                    log.info("Registered email filter rebuilt with {} emails in {} ms", count, nanos / 1_000_000);
+                                });
+                    })
+                    .doFinally(signal -> {
+                        next = null;
+                        rebuilding.set(false);
+                    });
+        });
+    }
+
+    @Override
+    public long approximateSize() {
+        BloomFilter filter = current;
+        return filter != null ? filter.insertions() : 0L;
+    }
+
+    @Override
+    public double expectedFalsePositiveRate() {
+        BloomFilter filter = current;
+        return filter != null ? filter.expectedFalsePositiveRate() : 1.0;
+    }
+}
@@ -0,0 +1,201 @@
+package com.bci.service.impl;
+
+import com.bci.model.JwkSetDTO;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claves ES256 en memoria con rotación. Además de la clave activa se publica la siguiente, de modo que un
+ * consumidor que cachea el JWKS menos que el intervalo de rotación ya la conoce cuando empieza a firmar.
+ * Las claves retiradas siguen verificando hasta que vence el último token que pudieron firmar.
+ * <p>
+ * El estado es inmutable y se reemplaza completo al rotar, así que las lecturas no toman locks.
+ */
+public final class SigningKeyRing {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final int COORDINATE_LENGTH = 32;
+
+    private final Duration rotationInterval;
+    private final Duration retention;
+    private final Clock clock;
+    private volatile State state;
+
+    /**
+     * @param retention vigencia máxima de un token firmado; cuánto se conserva una clave tras retirarla
+     */
+    public SigningKeyRing(Duration rotationInterval, Duration retention, Clock clock) {
+        if (rotationInterval.isZero() || rotationInterval.isNegative()) {
+            throw new IllegalArgumentException("Rotation interval must be positive");
+        }
+        this.rotationInterval = rotationInterval;
+        this.retention = retention;
+        this.clock = clock;
+        this.state = new State(generate(), generate(), List.of(), clock.instant().plus(rotationInterval));
+    }
+
+    public SigningKey current() {
+        return maintained().current;
+    }
+
+    /**
+     * Clave pública para el {@code kid} del header, o {@code null} si no es (o ya no es) de este anillo.
+     */
+    public PublicKey verificationKey(String kid) {
+        return maintained().verificationKeys.get(kid);
+    }
+
+    public JwkSetDTO jwks() {
+        return maintained().jwks;
+    }
+
+    private State maintained() {
+        State current = state;
+        return clock.instant().isBefore(current.nextChangeAt) ? current : maintain();
+    }
+
+    private synchronized State maintain() {
+        State current = state;
+        Instant now = clock.instant();
+        if (now.isBefore(current.nextChangeAt)) {
+            return current;
+        }
+
+        List<Retired> retired = new ArrayList<>();
+        for (Retired key : current.retired) {
+            if (now.isBefore(key.expiresAt)) {
+                retired.add(key);
+            }
+        }
+
+        State next;
+        if (now.isBefore(current.rotateAt)) {
+            next = new State(current.current, current.next, retired, current.rotateAt);
+        } else {
+            retired.add(new Retired(current.current, now.plus(retention)));
+            next = new State(current.next, generate(), retired, now.plus(rotationInterval));
+        }
+        state = next;
+        return next;
+    }
+
+    private static SigningKey generate() {
+        KeyPair keyPair;
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("EC P-256 not available", e);
+        }
+
+        ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+        String x = coordinate(publicKey.getW().getAffineX());
+        String y = coordinate(publicKey.getW().getAffineY());
+        String kid = thumbprint(x, y);
+
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("x", x);
+        jwk.put("y", y);
+
+        return new SigningKey(kid, publicKey, Map.copyOf(jwk), FastJwtIssuer.es256(kid, keyPair.getPrivate()));
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[COORDINATE_LENGTH];
+        int length = Math.min(bytes.length, COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, padded, COORDINATE_LENGTH - length, length);
+        return BASE64URL.encodeToString(padded);
+    }
+
+    /**
+     * {@code kid} = thumbprint JWK (RFC 7638): SHA-256 de los miembros obligatorios en orden lexicográfico.
+     */
+    private static String thumbprint(String x, String y) {
+        String canonical = "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\"" + x + "\",\"y\":\"" + y + "\"}";
+        return BASE64URL.encodeToString(sha256(canonical));
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record SigningKey(String kid, PublicKey publicKey, Map<String, String> jwk, FastJwtIssuer issuer) {
+    }
+
+    private record Retired(SigningKey key, Instant expiresAt) {
+    }
+
+    private static final class State {
+        private final SigningKey current;
+        private final SigningKey next;
+        private final List<Retired> retired;
+        private final Instant rotateAt;
+        private final Instant nextChangeAt;
+        private final Map<String, PublicKey> verificationKeys;
+        private final JwkSetDTO jwks;
+
+        private State(SigningKey current, SigningKey next, List<Retired> retired, Instant rotateAt) {
+            this.current = current;
+            this.next = next;
+            this.retired = List.copyOf(retired);
+            this.rotateAt = rotateAt;
+
+            Instant nextChangeAt = rotateAt;
+            Map<String, PublicKey> verificationKeys = new HashMap<>();
+            List<Map<String, String>> keys = new ArrayList<>();
+            StringBuilder kids = new StringBuilder();
+            for (SigningKey key : keys(current, next, this.retired)) {
+                verificationKeys.put(key.kid(), key.publicKey());
+                keys.add(key.jwk());
+                kids.append(key.kid()).append('.');
+            }
+            for (Retired key : this.retired) {
+                if (key.expiresAt.isBefore(nextChangeAt)) {
+                    nextChangeAt = key.expiresAt;
+                }
+            }
+            this.nextChangeAt = nextChangeAt;
+            this.verificationKeys = Map.copyOf(verificationKeys);
+            this.jwks = new JwkSetDTO(List.copyOf(keys),
+                    '"' + BASE64URL.encodeToString(sha256(kids.toString())).substring(0, 22) + '"');
+        }
+
+        private static List<SigningKey> keys(SigningKey current, SigningKey next, List<Retired> retired) {
+            List<SigningKey> keys = new ArrayList<>(retired.size() + 2);
+            keys.add(current);
+            keys.add(next);
+            for (Retired key : retired) {
+                keys.add(key.key);
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bci.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Agrupa llamadas concurrentes con la misma clave en una sola ejecución: la primera suscripción lanza
+ * la operación y las que llegan mientras sigue en curso reciben el mismo resultado (o error). Al terminar
+ * la clave se libera, así que no cachea nada; la operación sólo se cancela si cancelan todos los que esperan.
+ * <p>
+ * Todos reciben la misma instancia: los valores mutables deben copiarse después de {@link #execute}.
+ */
+final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    SingleFlight(String operation, MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("bci.singleflight.coalesced")
+                .description("Solicitudes resueltas con una operación ya en curso")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    Mono<V> execute(K key, Function<K, Mono<V>> operation) {
+        return Mono.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Mono<V> flight = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return newFlight(k, operation);
+            });
+            if (!leader[0]) {
+                coalesced.increment();
+            }
+            return flight;
+        });
+    }
+
+    private Mono<V> newFlight(K key, Function<K, Mono<V>> operation) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> flight = Mono.defer(() -> operation.apply(key))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .share();
+        self.set(flight);
+        return flight;
+    }
+}
@@ -0,0 +1,56 @@
+package com.bci.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Token buckets sin bloqueos implementados con GCRA: cada clave guarda en un {@link AtomicLong} el
+ * instante teórico de la próxima llegada, de modo que admitir una solicitud es una lectura y un CAS.
+ * Las claves se guardan en una caché acotada que descarta las inactivas.
+ */
+final class TokenBuckets {
+    private static final Function<String, AtomicLong> NEW_BUCKET = key -> new AtomicLong(Long.MIN_VALUE);
+
+    private final Cache<String, AtomicLong> buckets;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    TokenBuckets(double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permits-per-second must be greater than 0: " + permitsPerSecond);
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * @return {@code 0} si hay permiso disponible; si no, los nanosegundos hasta el próximo permiso.
+     */
+    long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, NEW_BUCKET);
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long allowedAt = next - burstToleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    long size() {
+        return buckets.estimatedSize();
+    }
+}
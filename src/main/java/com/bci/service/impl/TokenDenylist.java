@@ -0,0 +1,64 @@
+package com.bci.service.impl;
+
+import com.bci.model.TokenClaims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Revocaciones en memoria, consultadas en O(1) sin acceder a la base de datos. Guarda el {@code jti} de
+ * cada token revocado hasta su expiración y, por usuario, la versión mínima de token aceptada durante la
+ * vida máxima de un token de acceso; pasado ese plazo ningún token anterior sigue vigente.
+ */
+final class TokenDenylist {
+    private final Cache<String, Instant> revokedTokenIds;
+    private final Cache<String, Integer> minimumVersions;
+
+    TokenDenylist(Duration maxTokenLifetime) {
+        this.revokedTokenIds = Caffeine.newBuilder()
+                .expireAfter(new ExpireAtInstant())
+                .build();
+        this.minimumVersions = Caffeine.newBuilder()
+                .expireAfterWrite(maxTokenLifetime)
+                .build();
+    }
+
+    void revoke(String tokenId, Instant expiration) {
+        if (tokenId != null && expiration.isAfter(Instant.now())) {
+            revokedTokenIds.put(tokenId, expiration);
+        }
+    }
+
+    void revokeVersionsBefore(String userId, int minimumVersion) {
+        minimumVersions.asMap().merge(userId, minimumVersion, Math::max);
+    }
+
+    boolean isRevoked(TokenClaims claims) {
+        if (claims.getTokenId() != null && revokedTokenIds.getIfPresent(claims.getTokenId()) != null) {
+            return true;
+        }
+        Integer minimumVersion = claims.getUserId() != null ? minimumVersions.getIfPresent(claims.getUserId()) : null;
+        return minimumVersion != null && claims.getTokenVersion() < minimumVersion;
+    }
+
+    private static final class ExpireAtInstant implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String key, Instant value, long currentTime) {
+            return Math.max(0L, Duration.between(Instant.now(), value).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Instant value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Instant value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.bci.service.impl;
+
+import com.bci.exception.DatabaseBusyException;
+import com.bci.exception.InvalidTokenException;
+import com.bci.metrics.StageMetrics;
+import com.bci.model.ErrorResponseDTO;
+import com.bci.model.TokenIntrospectionDTO;
+import com.bci.repository.UserRepository;
+import com.bci.service.JwtService;
+import com.bci.service.TokenIntrospectionService;
+import com.bci.service.UserCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Los tokens se agrupan en bloques que se verifican en paralelo sobre {@link Schedulers#parallel()} con el
+ * parser compartido de {@link JwtService}; los ya verificados salen de su caché. El orden de la respuesta
+ * es el de la solicitud. Sólo se consulta la base de datos cuando se pide comprobar el usuario y éste no
+ * está en la caché de usuarios.
+ */
+@Slf4j
+@Service
+public class TokenIntrospectionServiceImpl implements TokenIntrospectionService {
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final StageMetrics stageMetrics;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxTokens;
+    private final Counter activeCounter;
+    private final Counter inactiveCounter;
+
+    public TokenIntrospectionServiceImpl(JwtService jwtService,
+                                         UserRepository userRepository,
+                                         UserCache userCache,
+                                         StageMetrics stageMetrics,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${security.introspection.chunk-size:64}") int chunkSize,
+                                         @Value("${security.introspection.parallelism:0}") int parallelism,
+                                         @Value("${security.introspection.max-tokens:1000}") int maxTokens) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.stageMetrics = stageMetrics;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxTokens = maxTokens;
+        this.activeCounter = Counter.builder("bci.token.introspection")
+                .tag("result", "active")
+                .register(meterRegistry);
+        this.inactiveCounter = Counter.builder("bci.token.introspection")
+                .tag("result", "inactive")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<TokenIntrospectionDTO> introspect(Flux<String> tokens, boolean checkUser) {
+        Flux<TokenIntrospectionDTO> verified = tokens
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .buffer(chunkSize)
+                .flatMapSequential(chunk -> Mono.fromCallable(() -> verify(chunk))
+                        .subscribeOn(Schedulers.parallel()), parallelism)
+                .concatMapIterable(results -> results);
+
+        Flux<TokenIntrospectionDTO> results = checkUser
+                ? verified.concatMap(this::checkUser)
+                : verified;
+        return results.doOnNext(result -> (result.isActive() ? activeCounter : inactiveCounter).increment());
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> introspectAll(List<String> tokens, boolean checkUser) {
+        if (tokens.size() > maxTokens) {
+            return Mono.just(ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body((Object) new ErrorResponseDTO("Too many tokens, maximum is " + maxTokens)));
+        }
+
+        return introspect(Flux.fromIterable(tokens), checkUser)
+                .collectList()
+                .map(results -> ResponseEntity.ok((Object) results));
+    }
+
+    private List<TokenIntrospectionDTO> verify(List<String> chunk) {
+        return stageMetrics.time("token.verify", StageMetrics.INTROSPECT, () -> {
+            List<TokenIntrospectionDTO> results = new ArrayList<>(chunk.size());
+            for (String token : chunk) {
+                results.add(verify(token));
+            }
+            return results;
+        });
+    }
+
+    private TokenIntrospectionDTO verify(String token) {
+        try {
+            return TokenIntrospectionDTO.active(jwtService.validateToken(unquote(token)));
+        } catch (InvalidTokenException e) {
+            return TokenIntrospectionDTO.inactive();
+        }
+    }
+
+    private Mono<TokenIntrospectionDTO> checkUser(TokenIntrospectionDTO result) {
+        if (!result.isActive()) {
+            return Mono.just(result);
+        }
+
+        return userCache.get(result.getEmail(), email -> stageMetrics.time("repository.find_user", StageMetrics.INTROSPECT,
+                        userRepository.findWithPhonesByEmail(email)))
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
+                .map(user -> Boolean.TRUE.equals(user.getIsActive())
+                        && (result.getUserId() == null || user.getId().toString().equals(result.getUserId()))
+                        ? result
+                        : TokenIntrospectionDTO.inactive())
+                .defaultIfEmpty(TokenIntrospectionDTO.inactive());
+    }
+
+    /**
+     * Las líneas NDJSON pueden traer el token como cadena JSON ({@code "eyJ..."}).
+     */
+    private static String unquote(String token) {
+        return token.length() >= 2 && token.charAt(0) == '"' && token.charAt(token.length() - 1) == '"'
+                ? token.substring(1, token.length() - 1)
+                : token;
+    }
+}
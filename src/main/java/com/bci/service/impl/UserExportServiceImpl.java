@@ -0,0 +1,117 @@
+package com.bci.service.impl;
+
+import com.bci.entity.User;
+import com.bci.mapper.UserMapper;
+import com.bci.repository.UserRepository;
+import com.bci.service.UserExportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exporta todos los usuarios con sus teléfonos como NDJSON. Recorre {@code users} por páginas con keyset
+ * sobre {@code id} y solo pide la página siguiente cuando el cliente consumió la anterior, de modo que en
+ * memoria hay como máximo la página en curso y la siguiente, sin importar el total de usuarios.
+ */
+@Slf4j
+@Service
+public class UserExportServiceImpl implements UserExportService {
+    private static final byte NEWLINE = '\n';
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final Duration progressInterval;
+    private final Counter rowsCounter;
+    private final Counter bytesCounter;
+
+    public UserExportServiceImpl(UserRepository userRepository,
+                                 UserMapper userMapper,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${users.export.page-size:500}") int pageSize,
+                                 @Value("${users.export.progress-interval:10s}") Duration progressInterval) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.progressInterval = progressInterval;
+        this.rowsCounter = Counter.builder("bci.user.export.rows")
+                .description("Usuarios escritos por la exportación")
+                .register(meterRegistry);
+        this.bytesCounter = Counter.builder("bci.user.export.bytes")
+                .description("Bytes escritos por la exportación")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<DataBuffer> exportNdjson(DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            Progress progress = new Progress();
+            Disposable reporter = Flux.interval(progressInterval, progressInterval)
+                    .subscribe(tick -> progress.report("Export in progress"));
+
+            return pages()
+                    .concatMapIterable(page -> page, 1)
+                    .map(user -> {
+                        byte[] json = serialize(user);
+                        progress.rows.incrementAndGet();
+                        progress.bytes.addAndGet(json.length);
+                        rowsCounter.increment();
+                        bytesCounter.increment(json.length);
+                        return bufferFactory.wrap(json);
+                    })
+                    .doOnComplete(() -> progress.report("Export completed"))
+                    .doOnError(e -> log.error("Export failed after {} rows: {}", progress.rows.get(), e.getMessage()))
+                    .doFinally(signal -> reporter.dispose());
+        });
+    }
+
+    private Flux<List<User>> pages() {
+        return userRepository.findPageWithPhones(null, pageSize)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : userRepository.findPageWithPhones(page.get(page.size() - 1).getId(), pageSize))
+                .filter(page -> !page.isEmpty());
+    }
+
+    private byte[] serialize(User user) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(userMapper.toExportDTO(user));
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = NEWLINE;
+            return line;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Progress {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        void report(String message) {
+            double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+            log.info("{}: {} rows ({} rows/s), {} bytes ({} bytes/s)",
+                    message, rows.get(), Math.round(rows.get() / seconds), bytes.get(), Math.round(bytes.get() / seconds));
+        }
+    }
+}
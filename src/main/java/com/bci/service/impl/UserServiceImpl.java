@@ -2,47 +2,105 @@ package com.bci.service.impl;
 
 import com.bci.entity.Phone;
 import com.bci.entity.User;
+import com.bci.exception.DatabaseBusyException;
+import com.bci.exception.IdempotencyKeyMismatchException;
+import com.bci.exception.ServiceUnavailableException;
+import com.bci.exception.TooManyRequestsException;
 import com.bci.exception.UserExistsException;
 import com.bci.exception.UserNotFoundException;
 import com.bci.exception.ValidationException;
 import com.bci.mapper.UserMapper;
+import com.bci.metrics.StageMetrics;
 import com.bci.model.ErrorResponseDTO;
 import com.bci.model.LoginRequestDTO;
+import com.bci.model.PhoneRequestDTO;
+import com.bci.model.ResponseFields;
 import com.bci.model.UserResponseDTO;
 import com.bci.model.UserSignUpRequestDTO;
 import com.bci.repository.PhoneRepository;
 import com.bci.repository.UserRepository;
+import com.bci.service.IdempotencyService;
 import com.bci.service.JwtService;
+import com.bci.service.PasswordHashingService;
+import com.bci.service.RateLimitService;
+import com.bci.service.RegisteredEmailFilter;
+import com.bci.service.UserCache;
 import com.bci.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final UserRepository userRepository;
     private final PhoneRepository phoneRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final UserMapper userMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final UserCache userCache;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final StageMetrics stageMetrics;
+    private final RateLimitService rateLimitService;
+    private final IdempotencyService idempotencyService;
+
+    /**
+     * Con {@code Idempotency-Key} el reintento de un registro recibe la respuesta original (sin otro BCrypt
+     * ni un 409 confuso) y los duplicados simultáneos esperan a la primera ejecución.
+     */
+    @Override
+    public Mono<ResponseEntity<Object>> signUp(UserSignUpRequestDTO request, String idempotencyKey, ResponseFields fields) {
+        if (idempotencyKey == null) {
+            return signUp(request).map(fields::applyTo);
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body((Object) new ErrorResponseDTO("Invalid Idempotency-Key header")));
+        }
+
+        return idempotencyService.execute("sign-up:" + idempotencyKey, canonicalRequest(request), () -> signUp(request))
+                .map(fields::applyTo)
+                .onErrorResume(IdempotencyKeyMismatchException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body((Object) new ErrorResponseDTO(e.getMessage()))));
+    }
 
     @Override
     public Mono<ResponseEntity<Object>> signUp(UserSignUpRequestDTO request) {
         return processSignUp(request)
+                .onErrorMap(DatabaseBusyException::isAcquireTimeout, DatabaseBusyException::new)
                 .map(response -> ResponseEntity.status(HttpStatus.CREATED).body((Object) response))
                 .onErrorResume(e -> {
-                    log.error("Error in signup: ", e);
+                    logSignUpError(e);
+
+                    if (e instanceof TooManyRequestsException tooManyRequests) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(tooManyRequests.getRetryAfterSeconds()))
+                                .body((Object) new ErrorResponseDTO(e.getMessage())));
+                    }
+
+                    if (e instanceof ServiceUnavailableException unavailable) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(unavailable.getRetryAfterSeconds()))
+                                .body((Object) new ErrorResponseDTO(e.getMessage())));
+                    }
 
                     HttpStatus status;
                     if (e instanceof UserExistsException) {
@@ -56,47 +114,108 @@ public class UserServiceImpl implements UserService {
                 });
     }
 
+    /**
+     * Los rechazos esperados no son fallas del servicio y se registran sin stack trace, para no inundar el log
+     * justo cuando hay carga: el 503 en WARN (indica saturación), el 429 y el 409 en DEBUG.
+     */
+    private static void logSignUpError(Throwable e) {
+        if (e instanceof ServiceUnavailableException) {
+            log.warn("Signup rejected, service unavailable: {}", e.getMessage());
+        } else if (e instanceof TooManyRequestsException || e instanceof UserExistsException) {
+            log.debug("Signup rejected: {}", e.getMessage());
+        } else {
+            log.error("Error in signup: ", e);
+        }
+    }
+
     private Mono<UserResponseDTO> processSignUp(UserSignUpRequestDTO request) {
-        return userRepository.findByEmail(request.getEmail())
-                .flatMap(existingUser -> Mono.<UserResponseDTO>error(
-                        new UserExistsException("Email already registered")))
-                .switchIfEmpty(Mono.defer(() -> {
-                    User user = userMapper.toEntity(request);
-                    user.setPassword(passwordEncoder.encode(request.getPassword()));
-                    user.setCreated(LocalDateTime.now());
-                    user.setIsActive(true);
-
-                    return userRepository.save(user)
-                            .flatMap(savedUser -> {
-                                String token = jwtService.generateToken(savedUser);
-                                savedUser.setToken(token);
-
-                                return userRepository.save(savedUser)
-                                        .flatMap(userWithToken -> {
-                                            if (request.getPhones() == null || request.getPhones().isEmpty()) {
-                                                return Mono.just(userMapper.toDTO(userWithToken));
-                                            }
-
-                                            List<Phone> phones = userMapper.phoneRequestDTOsToEntities(request.getPhones());
-
-                                            phones = phones.stream()
-                                                    .filter(phone -> phone != null)
-                                                    .peek(phone -> phone.setUserId(userWithToken.getId()))
-                                                    .collect(Collectors.toList());
-
-                                            if (phones.isEmpty()) {
-                                                return Mono.just(userMapper.toDTO(userWithToken));
-                                            }
-
-                                            return phoneRepository.saveAll(phones)
-                                                    .collectList()
-                                                    .map(savedPhones -> {
-                                                        userWithToken.setPhones(savedPhones);
-                                                        return userMapper.toDTO(userWithToken);
-                                                    });
-                                        });
-                            });
-                }));
+        return Mono.defer(() -> {
+            long retryAfterSeconds = rateLimitService.tryAcquireForEmail(request.getEmail());
+            if (retryAfterSeconds > 0) {
+                return Mono.error(new TooManyRequestsException("Too many requests", retryAfterSeconds));
+            }
+
+            User user = stageMetrics.time("mapping", StageMetrics.SIGN_UP, () -> userMapper.toEntity(request));
+            user.setId(UUID.randomUUID());
+            user.setCreated(LocalDateTime.now());
+            user.setIsActive(true);
+            user.setToken(stageMetrics.time("token.sign", StageMetrics.SIGN_UP, () -> jwtService.generateToken(user)));
+
+            List<Phone> phones = toPhones(request, user.getId());
+
+            return rejectIfRegistered(user.getEmail())
+                    .then(stageMetrics.time("password.hash", StageMetrics.SIGN_UP, passwordHashingService.encode(request.getPassword())))
+                    .flatMap(encodedPassword -> {
+                        user.setPassword(encodedPassword);
+                        return stageMetrics.time("repository.insert", StageMetrics.SIGN_UP, persist(user, phones));
+                    })
+                    .doOnNext(savedUser -> {
+                        userCache.invalidate(savedUser.getEmail());
+                        registeredEmailFilter.add(savedUser.getEmail());
+                    })
+                    .map(savedUser -> stageMetrics.time("mapping", StageMetrics.SIGN_UP, () -> userMapper.toDTO(savedUser)));
+        });
+    }
+
+    /**
+     * Solo consulta la base de datos cuando el filtro de Bloom indica que el email podría estar registrado,
+     * evitando en ese caso el costo de BCrypt. Un negativo del filtro es definitivo.
+     */
+    private Mono<Void> rejectIfRegistered(String email) {
+        if (!registeredEmailFilter.mightContain(email)) {
+            return Mono.empty();
+        }
+
+        return stageMetrics.time("repository.exists_by_email", StageMetrics.SIGN_UP, userRepository.existsByEmail(email))
+                .flatMap(exists -> exists
+                        ? Mono.<Void>error(new UserExistsException("Email already registered"))
+                        : Mono.<Void>empty());
+    }
+
+    private List<Phone> toPhones(UserSignUpRequestDTO request, UUID userId) {
+        if (request.getPhones() == null || request.getPhones().isEmpty()) {
+            return List.of();
+        }
+
+        return userMapper.phoneRequestDTOsToEntities(request.getPhones()).stream()
+                .filter(phone -> phone != null)
+                .peek(phone -> phone.setUserId(userId))
+                .collect(Collectors.toList());
+    }
+
+    private static String canonicalRequest(UserSignUpRequestDTO request) {
+        StringBuilder canonical = new StringBuilder()
+                .append(request.getName()).append('\u0000')
+                .append(request.getEmail()).append('\u0000')
+                .append(request.getPassword());
+        for (PhoneRequestDTO phone : request.getPhones() != null ? request.getPhones() : List.<PhoneRequestDTO>of()) {
+            canonical.append('\u0000').append(phone != null
+                    ? phone.getNumber() + ',' + phone.getCitycode() + ',' + phone.getCountrycode()
+                    : null);
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * La unicidad del email la garantiza la restricción {@code uk_users_email}; un insert duplicado,
+     * incluso entre registros concurrentes, se traduce a {@link UserExistsException}.
+     */
+    private Mono<User> persist(User user, List<Phone> phones) {
+        Mono<User> insertUser = userRepository.insert(user)
+                .onErrorMap(DuplicateKeyException.class, e -> new UserExistsException("Email already registered"));
+
+        if (phones.isEmpty()) {
+            return insertUser;
+        }
+
+        return insertUser
+                .flatMap(savedUser -> phoneRepository.insertAll(phones)
+                        .collectList()
+                        .map(savedPhones -> {
+                            savedUser.setPhones(savedPhones);
+                            return savedUser;
+                        }))
+                .as(transactionalOperator::transactional);
     }
 
 
@@ -0,0 +1,128 @@
+package com.bci.service.impl;
+
+import com.bci.entity.User;
+import com.bci.service.VerifiedCredentialCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Por cada email guarda el HMAC-SHA256 de la última contraseña verificada, calculado con una clave
+ * aleatoria que sólo existe en memoria, junto con el hash BCrypt contra el que se verificó. Una entrada
+ * deja de valer si el hash guardado cambia o el usuario se desactiva. Desactivada por defecto.
+ */
+@Slf4j
+@Service
+public class VerifiedCredentialCacheImpl implements VerifiedCredentialCache {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec hmacKey;
+    private final Cache<String, Verification> verifications;
+    private final MeterRegistry meterRegistry;
+    private final Counter savedTime;
+    private volatile Timer matchesTimer;
+
+    public VerifiedCredentialCacheImpl(MeterRegistry meterRegistry,
+                                       @Value("${security.credential-cache.enabled:false}") boolean enabled,
+                                       @Value("${security.credential-cache.max-size:10000}") long maxSize,
+                                       @Value("${security.credential-cache.ttl:30s}") Duration ttl) {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+
+        this.enabled = enabled;
+        this.hmacKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        this.meterRegistry = meterRegistry;
+        this.verifications = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifications, "credentials");
+        this.savedTime = Counter.builder("bci.credential.cache.saved")
+                .description("Tiempo de BCrypt evitado por aciertos de la caché de credenciales")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isVerified(User user, CharSequence rawPassword) {
+        if (!enabled || user.getEmail() == null || rawPassword == null) {
+            return false;
+        }
+
+        Verification verification = verifications.getIfPresent(user.getEmail());
+        if (verification == null) {
+            return false;
+        }
+
+        if (!Boolean.TRUE.equals(user.getIsActive()) || !verification.passwordHash().equals(user.getPassword())) {
+            verifications.invalidate(user.getEmail());
+            return false;
+        }
+
+        if (!MessageDigest.isEqual(verification.passwordHmac(), hmac(rawPassword))) {
+            return false;
+        }
+
+        recordSavedTime();
+        return true;
+    }
+
+    @Override
+    public void recordVerified(User user, CharSequence rawPassword) {
+        if (!enabled || user.getEmail() == null || user.getPassword() == null || rawPassword == null) {
+            return;
+        }
+        verifications.put(user.getEmail(), new Verification(hmac(rawPassword), user.getPassword()));
+    }
+
+    @Override
+    public void invalidate(String email) {
+        verifications.invalidate(email);
+    }
+
+    private byte[] hmac(CharSequence rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            mac.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword)));
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Cada acierto ahorra un {@code matches} de BCrypt; se estima con la duración media observada.
+     */
+    private void recordSavedTime() {
+        Timer timer = matchesTimer;
+        if (timer == null) {
+            timer = meterRegistry.find("bci.password.hashing.duration").tag("operation", "matches").timer();
+            matchesTimer = timer;
+        }
+        if (timer != null) {
+            savedTime.increment(timer.mean(TimeUnit.SECONDS));
+        }
+    }
+
+    private record Verification(byte[] passwordHmac, String passwordHash) {
+    }
+}
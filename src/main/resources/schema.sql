@@ -1,12 +1,13 @@
 CREATE TABLE IF NOT EXISTS users (
                                      id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL,
     password VARCHAR(255) NOT NULL,
     created TIMESTAMP DEFAULT NOW(),
     last_login TIMESTAMP,
-    token VARCHAR(2000),
-    is_active BOOLEAN DEFAULT TRUE
+    token_version INTEGER NOT NULL DEFAULT 0,
+    is_active BOOLEAN DEFAULT TRUE,
+    CONSTRAINT uk_users_email UNIQUE (email)
     );
 
 CREATE TABLE IF NOT EXISTS phones (
@@ -18,5 +19,4 @@ CREATE TABLE IF NOT EXISTS phones (
     CONSTRAINT fk_phones_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
     );
 
-CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_phones_user_id ON phones(user_id);
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.bci.reto.config
+
+import com.bci.config.AdaptiveConcurrencyLimiter
+import com.bci.config.ConcurrencyLimitWebFilter
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest
+import org.springframework.mock.web.server.MockServerWebExchange
+import org.springframework.web.server.WebFilterChain
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ConcurrencyLimitWebFilterSpec extends Specification {
+    SimpleMeterRegistry registry
+    WebFilterChain chain
+    ConcurrencyLimitWebFilter filter
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+        chain = Mock()
+        filter = new ConcurrencyLimitWebFilter(registry, true, 1, 1, 1, 1, 1, 1)
+    }
+
+    def "debería responder 503 con Retry-After cuando la clase de ruta está en su límite"() {
+        given:
+        def limiter = filter.getLimiters().get(ConcurrencyLimitWebFilter.BCRYPT_ROUTES)
+        limiter.tryAcquire()
+        def exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/login/authenticate"))
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        0 * chain.filter(_)
+        exchange.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+        exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER) == "1"
+        registry.get("bci.concurrency.rejected").tag("route", "bcrypt").functionCounter().count() == 1
+    }
+
+    def "debería liberar el lugar al terminar la solicitud"() {
+        given:
+        def exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/login/validate"))
+        def limiter = filter.getLimiters().get(ConcurrencyLimitWebFilter.TOKEN_ROUTES)
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        1 * chain.filter(exchange) >> Mono.fromRunnable { assert limiter.getInFlight() == 1 }
+        limiter.getInFlight() == 0
+    }
+
+    def "debería liberar el lugar cuando la cadena falla"() {
+        given:
+        def exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/login/validate"))
+        def limiter = filter.getLimiters().get(ConcurrencyLimitWebFilter.TOKEN_ROUTES)
+
+        when:
+        filter.filter(exchange, chain).onErrorResume { Mono.empty() }.block()
+
+        then:
+        1 * chain.filter(exchange) >> { throw new IllegalStateException("boom") }
+        limiter.getInFlight() == 0
+    }
+
+    def "no debería limitar las rutas de streaming ni actuator"() {
+        given:
+        def exchange = MockServerWebExchange.from(MockServerHttpRequest.post(path))
+        filter.getLimiters().values().each { it.tryAcquire() }
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        1 * chain.filter(exchange) >> Mono.empty()
+
+        where:
+        path << ["/api/user/bulk-sign-up", "/api/user/export", "/actuator/health"]
+    }
+
+    def "el límite debería bajar cuando la latencia crece"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(50, 5, 100)
+        50.times { limiter.tryAcquire() }
+        100.times {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true)
+            limiter.tryAcquire()
+        }
+        def before = limiter.getLimit()
+
+        when:
+        100.times {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(100), true)
+            limiter.tryAcquire()
+        }
+
+        then:
+        limiter.getLimit() < before
+        limiter.getLimit() >= 5
+    }
+
+    def "el límite debería subir cuando la latencia es estable y el límite está en uso"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(10, 5, 100)
+        10.times { limiter.tryAcquire() }
+
+        when:
+        50.times {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true)
+            limiter.tryAcquire()
+        }
+
+        then:
+        limiter.getLimit() > 10
+    }
+}
@@ -0,0 +1,66 @@
+package com.bci.reto.config
+
+import com.bci.config.PasswordEncoderConfig
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder
+import spock.lang.Specification
+
+import java.time.Duration
+
+class PasswordEncoderConfigSpec extends Specification {
+
+    def "la calibración debería respetar los costos mínimo y máximo"() {
+        when:
+        def calibration = PasswordEncoderConfig.calibrate(latency, 4, 6)
+
+        then:
+        calibration.cost() == expectedCost
+        calibration.hashNanos() > 0
+
+        where:
+        latency               || expectedCost
+        Duration.ofNanos(1)   || 4
+        Duration.ofMinutes(1) || 6
+    }
+
+    def "debería guardar los hashes con el id del codificador y el costo configurado"() {
+        given:
+        def encoder = PasswordEncoderConfig.delegatingEncoder(4)
+
+        when:
+        def encoded = encoder.encode("Password1a2")
+
+        then:
+        encoded.startsWith('{bcrypt}$2a$04$')
+        encoder.matches("Password1a2", encoded)
+        !encoder.upgradeEncoding(encoded)
+    }
+
+    def "debería verificar y pedir rehash de hashes sin prefijo o con otro costo"() {
+        given:
+        def encoder = PasswordEncoderConfig.delegatingEncoder(5)
+
+        expect:
+        encoder.matches("Password1a2", stored)
+        encoder.upgradeEncoding(stored)
+
+        where:
+        stored << [
+                new BCryptPasswordEncoder(4).encode("Password1a2"),
+                '{bcrypt}' + new BCryptPasswordEncoder(4).encode("Password1a2"),
+                '{bcrypt}' + new BCryptPasswordEncoder(6).encode("Password1a2")
+        ]
+    }
+
+    def "debería exponer el costo elegido y el tiempo de hash medido"() {
+        given:
+        def registry = new SimpleMeterRegistry()
+
+        when:
+        new PasswordEncoderConfig().passwordEncoder(registry, 4, Duration.ofMillis(250), 10, 14)
+
+        then:
+        registry.get("bci.password.bcrypt.cost").gauge().value() == 4
+        registry.get("bci.password.bcrypt.hash.time").timeGauge().value() > 0
+    }
+}
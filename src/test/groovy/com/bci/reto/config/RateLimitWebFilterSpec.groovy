@@ -0,0 +1,67 @@
+package com.bci.reto.config
+
+import com.bci.config.RateLimitWebFilter
+import com.bci.service.RateLimitService
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest
+import org.springframework.mock.web.server.MockServerWebExchange
+import org.springframework.web.server.WebFilterChain
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+class RateLimitWebFilterSpec extends Specification {
+    RateLimitService rateLimitService
+    WebFilterChain chain
+    RateLimitWebFilter filter
+
+    def setup() {
+        rateLimitService = Mock()
+        chain = Mock()
+        filter = new RateLimitWebFilter(rateLimitService)
+    }
+
+    private static MockServerWebExchange post(String path) {
+        MockServerWebExchange.from(MockServerHttpRequest.post(path)
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 5000)))
+    }
+
+    def "debería dejar pasar la solicitud cuando la IP tiene permisos"() {
+        given:
+        def exchange = post("/api/login/authenticate")
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        1 * rateLimitService.tryAcquireForIp("10.0.0.1") >> 0L
+        1 * chain.filter(exchange) >> Mono.empty()
+    }
+
+    def "debería responder 429 con Retry-After cuando la IP supera su límite"() {
+        given:
+        def exchange = post("/api/user/sign-up")
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        1 * rateLimitService.tryAcquireForIp("10.0.0.1") >> 3L
+        0 * chain.filter(_)
+        exchange.getResponse().getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER) == "3"
+        exchange.getResponse().getBodyAsString().block() == '{"mensaje":"Too many requests"}'
+    }
+
+    def "no debería limitar rutas sin BCrypt"() {
+        given:
+        def exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/login/validate"))
+
+        when:
+        filter.filter(exchange, chain).block()
+
+        then:
+        0 * rateLimitService._
+        1 * chain.filter(exchange) >> Mono.empty()
+    }
+}
@@ -0,0 +1,123 @@
+package com.bci.reto.config
+
+import com.bci.config.JwtAuthenticationWebFilter
+import com.bci.config.OperatorAuthenticationWebFilter
+import com.bci.config.SecurityConfig
+import com.bci.controller.UserController
+import com.bci.metrics.StageMetrics
+import com.bci.model.TokenClaims
+import com.bci.service.BulkSignUpService
+import com.bci.service.JwtService
+import com.bci.service.UserExportService
+import com.bci.service.UserService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.MediaType
+import org.springframework.security.config.web.server.ServerHttpSecurity
+import org.springframework.security.web.server.WebFilterChainProxy
+import org.springframework.test.web.reactive.server.WebTestClient
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+
+import java.time.Instant
+
+class SecurityConfigSpec extends Specification {
+    JwtService jwtService = Mock()
+    BulkSignUpService bulkSignUpService = Mock()
+    UserExportService userExportService = Mock()
+    WebTestClient client
+
+    def setup() {
+        def jwtFilter = new JwtAuthenticationWebFilter(jwtService, new StageMetrics(new SimpleMeterRegistry()))
+        def chain = new SecurityConfig(jwtFilter, new OperatorAuthenticationWebFilter("clave-operador"))
+                .springSecurityFilterChain(ServerHttpSecurity.http())
+        client = WebTestClient
+                .bindToController(new UserController(Mock(UserService), bulkSignUpService, userExportService))
+                .webFilter(new WebFilterChainProxy(chain))
+                .build()
+    }
+
+    private static TokenClaims userClaims() {
+        new TokenClaims("juan@ejemplo.com", null, Instant.now(), Instant.now().plusSeconds(60), "jti", 0)
+    }
+
+    def "un token de usuario no debería poder reconstruir el filtro de emails"() {
+        when:
+        def response = client.post().uri("/actuator/emailfilter")
+                .header("Authorization", "Bearer token.jwt.valido")
+                .exchange()
+
+        then:
+        response.expectStatus().isForbidden()
+        1 * jwtService.validateToken("token.jwt.valido") >> userClaims()
+    }
+
+    def "la clave del operador debería superar la autorización de las escrituras del actuator"() {
+        when: 'el endpoint no está montado en este cliente, así que llegar al enrutamiento responde 404'
+        def response = client.post().uri("/actuator/emailfilter")
+                .header(OperatorAuthenticationWebFilter.OPERATOR_KEY_HEADER, "clave-operador")
+                .exchange()
+
+        then:
+        response.expectStatus().isNotFound()
+    }
+
+    def "una clave de operador incorrecta no debería autenticar"() {
+        when:
+        def response = client.post().uri("/actuator/emailfilter")
+                .header(OperatorAuthenticationWebFilter.OPERATOR_KEY_HEADER, "otra-clave")
+                .exchange()
+
+        then:
+        response.expectStatus().isUnauthorized()
+    }
+
+    def "un token de usuario no debería poder hacer un registro masivo"() {
+        when:
+        def response = client.post().uri("/api/user/bulk-sign-up")
+                .header("Authorization", "Bearer token.jwt.valido")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue('{"email":"juan@ejemplo.com"}\n')
+                .exchange()
+
+        then:
+        response.expectStatus().isForbidden()
+        1 * jwtService.validateToken("token.jwt.valido") >> userClaims()
+        0 * bulkSignUpService.bulkSignUp(_)
+    }
+
+    def "la clave del operador debería permitir el registro masivo"() {
+        when:
+        def response = client.post().uri("/api/user/bulk-sign-up")
+                .header(OperatorAuthenticationWebFilter.OPERATOR_KEY_HEADER, "clave-operador")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue('{"email":"juan@ejemplo.com"}\n')
+                .exchange()
+
+        then:
+        response.expectStatus().isOk()
+        1 * bulkSignUpService.bulkSignUp(_) >> Flux.empty()
+    }
+
+    def "un token de usuario no debería poder exportar usuarios"() {
+        when:
+        def response = client.get().uri("/api/user/export")
+                .header("Authorization", "Bearer token.jwt.valido")
+                .exchange()
+
+        then:
+        response.expectStatus().isForbidden()
+        1 * jwtService.validateToken("token.jwt.valido") >> userClaims()
+        0 * userExportService.exportNdjson(_)
+    }
+
+    def "la clave del operador debería permitir exportar usuarios"() {
+        when:
+        def response = client.get().uri("/api/user/export")
+                .header(OperatorAuthenticationWebFilter.OPERATOR_KEY_HEADER, "clave-operador")
+                .exchange()
+
+        then:
+        response.expectStatus().isOk()
+        1 * userExportService.exportNdjson(_) >> Flux.empty()
+    }
+}
@@ -0,0 +1,51 @@
+package com.bci.reto.controller
+
+import com.bci.controller.JwksController
+import com.bci.model.JwkSetDTO
+import com.bci.service.JwtService
+import org.springframework.http.HttpStatus
+import spock.lang.Specification
+
+import java.time.Duration
+
+class JwksControllerSpec extends Specification {
+    JwtService jwtService = Mock()
+    JwksController controller = new JwksController(jwtService, Duration.ofMinutes(10))
+    JwkSetDTO jwks = new JwkSetDTO([[kty: "EC", kid: "kid-1"]], '"abc"')
+
+    def "debería devolver las claves con Cache-Control público y ETag"() {
+        when:
+        def response = controller.jwks(null).block()
+
+        then:
+        1 * jwtService.publicKeys() >> jwks
+        response.getStatusCode() == HttpStatus.OK
+        response.getBody() == jwks
+        response.getHeaders().getCacheControl() == "max-age=600, public"
+        response.getHeaders().getETag() == '"abc"'
+    }
+
+    def "debería responder 304 sin cuerpo si el ETag no cambió"() {
+        when:
+        def response = controller.jwks(ifNoneMatch).block()
+
+        then:
+        1 * jwtService.publicKeys() >> jwks
+        response.getStatusCode() == HttpStatus.NOT_MODIFIED
+        response.getBody() == null
+        response.getHeaders().getETag() == '"abc"'
+
+        where:
+        ifNoneMatch << ['"abc"', 'W/"abc"', '"viejo", "abc"', '*']
+    }
+
+    def "debería devolver el cuerpo si el ETag enviado es de otra versión"() {
+        when:
+        def response = controller.jwks('"viejo"').block()
+
+        then:
+        1 * jwtService.publicKeys() >> jwks
+        response.getStatusCode() == HttpStatus.OK
+        response.getBody() == jwks
+    }
+}
@@ -0,0 +1,53 @@
+package com.bci.reto.controller
+
+import com.bci.config.JwtAuthenticationWebFilter
+import com.bci.controller.LoginController
+import com.bci.metrics.StageMetrics
+import com.bci.model.ResponseFields
+import com.bci.model.TokenClaims
+import com.bci.service.JwtService
+import com.bci.service.LoginService
+import com.bci.service.TokenIntrospectionService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.ResponseEntity
+import org.springframework.test.web.reactive.server.WebTestClient
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Instant
+
+class JwtAuthenticationFlowSpec extends Specification {
+    JwtService jwtService = Mock()
+    LoginService loginService = Mock()
+    WebTestClient client = WebTestClient
+            .bindToController(new LoginController(loginService, Mock(TokenIntrospectionService)))
+            .webFilter(new JwtAuthenticationWebFilter(jwtService, new StageMetrics(new SimpleMeterRegistry())))
+            .build()
+
+    def "el controlador debería recibir los claims que verificó el filtro"() {
+        given:
+        def claims = new TokenClaims("juan@ejemplo.com", null, Instant.now(), Instant.now().plusSeconds(60), "jti", 0)
+
+        when:
+        def response = client.get().uri("/api/login/validate")
+                .header("Authorization", "Bearer token.jwt.valido")
+                .exchange()
+
+        then:
+        response.expectStatus().isOk()
+        1 * jwtService.validateToken("token.jwt.valido") >> claims
+        1 * loginService.login("Bearer token.jwt.valido", claims, ResponseFields.all()) >> Mono.just(ResponseEntity.ok((Object) [token: "nuevo"]))
+    }
+
+    def "sin token válido el controlador no debería recibir claims"() {
+        when:
+        def response = client.get().uri("/api/login/validate")
+                .header("Authorization", "Bearer token.invalido")
+                .exchange()
+
+        then:
+        response.expectStatus().isOk()
+        1 * jwtService.validateToken("token.invalido") >> { throw new IllegalArgumentException("invalid") }
+        1 * loginService.login("Bearer token.invalido", null, ResponseFields.all()) >> Mono.just(ResponseEntity.ok((Object) [token: "nuevo"]))
+    }
+}
@@ -3,10 +3,16 @@ package com.bci.reto.controller
 import com.bci.controller.LoginController
 import com.bci.model.LoginRequestDTO
 import com.bci.model.PhoneResponseDTO
+import com.bci.model.RefreshTokenRequestDTO
+import com.bci.model.ResponseFields
+import com.bci.model.TokenIntrospectionDTO
+import com.bci.model.TokenResponseDTO
 import com.bci.model.UserResponseDTO
 import com.bci.service.LoginService
+import com.bci.service.TokenIntrospectionService
 import org.springframework.http.HttpStatus
 import org.springframework.http.ResponseEntity
+import reactor.core.publisher.Flux
 import reactor.core.publisher.Mono
 import spock.lang.Specification
 
@@ -14,11 +20,13 @@ import java.time.LocalDateTime
 
 class LoginControllerSpec extends Specification {
     LoginService loginService
+    TokenIntrospectionService tokenIntrospectionService
     LoginController loginController
 
     def setup() {
         loginService = Mock()
-        loginController = new LoginController(loginService)
+        tokenIntrospectionService = Mock()
+        loginController = new LoginController(loginService, tokenIntrospectionService)
     }
 
     def "debería iniciar sesión exitosamente con token válido"() {
@@ -40,10 +48,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.ok(responseDTO)
 
         when: 'se llama al endpoint de login'
-        def resultado = loginController.login(authHeader).block()
+        def resultado = loginController.login(authHeader, null, null, null).block()
 
         then: 'debe procesar el login correctamente'
-        1 * loginService.login(authHeader) >> Mono.just(responseEntity)
+        1 * loginService.login(authHeader, null, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
@@ -56,10 +64,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null)
 
         when: 'se llama al endpoint de login'
-        def resultado = loginController.login(authHeader).block()
+        def resultado = loginController.login(authHeader, null, null, null).block()
 
         then: 'debe retornar unauthorized'
-        1 * loginService.login(authHeader) >> Mono.just(responseEntity)
+        1 * loginService.login(authHeader, null, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
         resultado.getBody() == null
@@ -72,10 +80,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null)
 
         when: 'se llama al endpoint de login'
-        def resultado = loginController.login(authHeader).block()
+        def resultado = loginController.login(authHeader, null, null, null).block()
 
         then: 'debe retornar unauthorized'
-        1 * loginService.login(authHeader) >> Mono.just(responseEntity)
+        1 * loginService.login(authHeader, null, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
         resultado.getBody() == null
@@ -102,10 +110,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.ok(responseDTO)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe procesar el login correctamente'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
@@ -118,10 +126,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.NOT_FOUND).body(null)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe retornar not found'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.NOT_FOUND
         resultado.getBody() == null
@@ -134,10 +142,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe retornar bad request'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.BAD_REQUEST
         resultado.getBody() == null
@@ -150,10 +158,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe retornar unauthorized'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
         resultado.getBody() == null
@@ -177,10 +185,10 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.ok(responseDTO)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe procesar el login correctamente'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
@@ -208,13 +216,60 @@ class LoginControllerSpec extends Specification {
         def responseEntity = ResponseEntity.ok(responseDTO)
 
         when: 'se llama al endpoint de login con credenciales'
-        def resultado = loginController.loginWithCredentials(request).block()
+        def resultado = loginController.loginWithCredentials(request, null, null).block()
 
         then: 'debe procesar el login correctamente'
-        1 * loginService.loginWithCredentials(request) >> Mono.just(responseEntity)
+        1 * loginService.loginWithCredentials(request, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
         resultado.getBody().getPhones().size() == 2
     }
-}
\ No newline at end of file
+
+    def "debería delegar la renovación de token en el servicio"() {
+        given:
+        def request = new RefreshTokenRequestDTO("refresh.opaco")
+        def tokens = new TokenResponseDTO("nuevo.token.jwt", "refresh.nuevo")
+
+        when:
+        def resultado = loginController.refresh(request).block()
+
+        then:
+        1 * loginService.refresh(request) >> Mono.just(ResponseEntity.ok(tokens))
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody() == tokens
+    }
+
+    def "debería delegar el cierre de sesión en el servicio"() {
+        when:
+        def resultado = loginController.logout(true, null).block()
+
+        then:
+        1 * loginService.logout(null, true) >> Mono.just(ResponseEntity.noContent().build())
+        resultado.getStatusCode() == HttpStatus.NO_CONTENT
+    }
+
+    def "debería delegar la introspección por arreglo en el servicio"() {
+        given:
+        def results = [TokenIntrospectionDTO.inactive()]
+
+        when:
+        def resultado = loginController.introspect(["a.b.c"], true).block()
+
+        then:
+        1 * tokenIntrospectionService.introspectAll(["a.b.c"], true) >> Mono.just(ResponseEntity.ok(results))
+        resultado.getBody() == results
+    }
+
+    def "debería delegar la introspección en streaming en el servicio"() {
+        given:
+        def tokens = Flux.just("a.b.c")
+
+        when:
+        def resultado = loginController.introspectStream(tokens, false).collectList().block()
+
+        then:
+        1 * tokenIntrospectionService.introspect(tokens, false) >> Flux.just(TokenIntrospectionDTO.inactive())
+        resultado == [TokenIntrospectionDTO.inactive()]
+    }
+}
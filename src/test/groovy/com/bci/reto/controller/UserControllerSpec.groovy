@@ -2,8 +2,11 @@ package com.bci.reto.controller
 
 import com.bci.controller.UserController
 import com.bci.model.PhoneRequestDTO
+import com.bci.model.ResponseFields
 import com.bci.model.UserResponseDTO
 import com.bci.model.UserSignUpRequestDTO
+import com.bci.service.BulkSignUpService
+import com.bci.service.UserExportService
 import com.bci.service.UserService
 import org.springframework.http.HttpStatus
 import org.springframework.http.ResponseEntity
@@ -14,11 +17,15 @@ import java.time.LocalDateTime
 
 class UserControllerSpec extends Specification {
     UserService userService
+    BulkSignUpService bulkSignUpService
+    UserExportService userExportService
     UserController userController
 
     def setup() {
         userService = Mock()
-        userController = new UserController(userService)
+        bulkSignUpService = Mock()
+        userExportService = Mock()
+        userController = new UserController(userService, bulkSignUpService, userExportService)
     }
 
     def "debería registrar un usuario exitosamente"() {
@@ -40,10 +47,10 @@ class UserControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.CREATED).body(responseDTO)
 
         when: 'se llama al endpoint de registro'
-        def resultado = userController.signUp(request).block()
+        def resultado = userController.signUp(request, null, null, null).block()
 
         then: 'debe procesar la solicitud correctamente'
-        1 * userService.signUp(request) >> Mono.just(responseEntity)
+        1 * userService.signUp(request, null, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.CREATED
         resultado.getBody() == responseDTO
@@ -56,10 +63,10 @@ class UserControllerSpec extends Specification {
         def errorResponse = ResponseEntity.status(HttpStatus.CONFLICT).body("Error message")
 
         when: 'se llama al endpoint de registro'
-        def resultado = userController.signUp(request).block()
+        def resultado = userController.signUp(request, null, null, null).block()
 
         then: 'debe retornar el error correspondiente'
-        1 * userService.signUp(request) >> Mono.just(errorResponse)
+        1 * userService.signUp(request, null, ResponseFields.all()) >> Mono.just(errorResponse)
 
         resultado.getStatusCode() == HttpStatus.CONFLICT
     }
@@ -82,10 +89,10 @@ class UserControllerSpec extends Specification {
         def responseEntity = ResponseEntity.status(HttpStatus.CREATED).body(responseDTO)
 
         when: 'se llama al endpoint de registro'
-        def resultado = userController.signUp(request).block()
+        def resultado = userController.signUp(request, null, null, null).block()
 
         then: 'debe procesar la solicitud correctamente'
-        1 * userService.signUp(request) >> Mono.just(responseEntity)
+        1 * userService.signUp(request, null, ResponseFields.all()) >> Mono.just(responseEntity)
 
         resultado.getStatusCode() == HttpStatus.CREATED
         resultado.getBody() == responseDTO
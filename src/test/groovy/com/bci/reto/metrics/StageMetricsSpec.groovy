@@ -0,0 +1,73 @@
+package com.bci.reto.metrics
+
+import com.bci.metrics.StageMetrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+
+class StageMetricsSpec extends Specification {
+    SimpleMeterRegistry registry
+    StageMetrics stageMetrics
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+        stageMetrics = new StageMetrics(registry)
+    }
+
+    private double count(String stage, String endpoint, String outcome) {
+        registry.get(StageMetrics.METRIC_NAME)
+                .tags("stage", stage, "endpoint", endpoint, "outcome", outcome)
+                .timer()
+                .count()
+    }
+
+    def "debería medir un Mono desde la suscripción hasta que termina"() {
+        when: 'se mide una etapa asíncrona'
+        def result = stageMetrics.time("password.hash", StageMetrics.SIGN_UP,
+                Mono.delay(Duration.ofMillis(20)).thenReturn("hash")).block()
+
+        then: 'se registra una medición exitosa con la duración de la etapa'
+        result == "hash"
+        count("password.hash", "sign-up", "success") == 1
+        registry.get(StageMetrics.METRIC_NAME).tag("stage", "password.hash").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 20
+    }
+
+    def "no debería medir nada hasta que el Mono se suscribe"() {
+        when: 'se arma la etapa sin suscribirse'
+        stageMetrics.time("repository.insert", StageMetrics.SIGN_UP, Mono.just(1))
+
+        then: 'no hay mediciones'
+        registry.find(StageMetrics.METRIC_NAME).timers().isEmpty()
+    }
+
+    def "debería etiquetar los errores con outcome error"() {
+        when: 'la etapa falla'
+        stageMetrics.time("repository.find_user", StageMetrics.LOGIN_VALIDATE,
+                Mono.error(new IllegalStateException("falla"))).onErrorResume { Mono.empty() }.block()
+        try {
+            stageMetrics.time("mapping", StageMetrics.LOGIN_VALIDATE, { throw new IllegalStateException("falla") } as Supplier)
+        } catch (IllegalStateException ignored) {
+        }
+
+        then: 'ambas mediciones quedan como error'
+        count("repository.find_user", "login-validate", "error") == 1
+        count("mapping", "login-validate", "error") == 1
+    }
+
+    def "debería acotar la etiqueta endpoint a las rutas conocidas"() {
+        expect:
+        StageMetrics.endpointOf(path) == endpoint
+
+        where:
+        path                      || endpoint
+        "/api/user/sign-up"       || "sign-up"
+        "/api/login/validate"     || "login-validate"
+        "/api/login/authenticate" || "login-authenticate"
+        "/api/user/123"           || "other"
+    }
+}
@@ -0,0 +1,105 @@
+package com.bci.reto.repository
+
+import com.bci.exception.DatabaseBusyException
+import io.r2dbc.h2.H2ConnectionFactory
+import io.r2dbc.pool.ConnectionPool
+import io.r2dbc.pool.ConnectionPoolConfiguration
+import io.r2dbc.spi.Connection
+import org.springframework.dao.DataAccessResourceFailureException
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Prueba de carga del pool R2DBC: con el pool saturado las adquisiciones fallan tras
+ * {@code maxAcquireTime} en lugar de quedar esperando indefinidamente.
+ */
+class ConnectionPoolSpec extends Specification {
+    ConnectionPool pool
+
+    def setup() {
+        def connectionFactory = H2ConnectionFactory.inMemory("pool-" + UUID.randomUUID())
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(1)
+                .maxSize(4)
+                .maxAcquireTime(Duration.ofMillis(200))
+                .validationQuery("SELECT 1")
+                .build())
+    }
+
+    def cleanup() {
+        pool.dispose()
+    }
+
+    private Mono<Long> slowQuery(Duration holdFor) {
+        Mono.usingWhen(pool.create(),
+                { Connection connection ->
+                    Flux.from(connection.createStatement("SELECT 1").execute())
+                            .flatMap { it.map { row, metadata -> 1L } }
+                            .then(Mono.delay(holdFor))
+                },
+                { Connection connection -> connection.close() })
+    }
+
+    def "debería atender toda la carga cuando cabe en el pool"() {
+        when: 'se lanzan 40 consultas con un máximo de 4 en paralelo'
+        def completed = Flux.range(1, 40)
+                .flatMap({ slowQuery(Duration.ofMillis(10)) }, 4)
+                .count()
+                .block(Duration.ofSeconds(10))
+
+        then: 'todas terminan y el pool queda libre'
+        completed == 40
+        pool.getMetrics().get().acquiredSize() == 0
+        pool.getMetrics().get().pendingAcquireSize() == 0
+    }
+
+    def "debería fallar rápido cuando el pool está saturado"() {
+        given: 'el doble de consultas concurrentes que conexiones, cada una retiene su conexión 1 segundo'
+        def succeeded = new AtomicInteger()
+        def timedOut = new AtomicInteger()
+
+        when: 'se lanzan todas a la vez'
+        def start = System.nanoTime()
+        Flux.range(1, 8)
+                .flatMap({
+                    slowQuery(Duration.ofSeconds(1))
+                            .doOnNext { succeeded.incrementAndGet() }
+                            .onErrorResume(DatabaseBusyException::isAcquireTimeout, { e ->
+                                timedOut.incrementAndGet()
+                                Mono.empty()
+                            })
+                }, 8)
+                .blockLast(Duration.ofSeconds(10))
+        def elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        then: 'solo se atienden tantas como conexiones hay y el resto se rechaza sin esperar a que se liberen'
+        succeeded.get() == 4
+        timedOut.get() == 4
+        elapsedMillis < 2_000
+    }
+
+    def "debería reconocer el timeout de adquisición envuelto por Spring"() {
+        given: 'el pool saturado'
+        def held = Flux.range(1, 4).flatMap({ pool.create() }).collectList().block()
+
+        when: 'se pide una conexión más'
+        def error = null
+        try {
+            pool.create().block()
+        } catch (Exception e) {
+            error = new DataAccessResourceFailureException("Failed to obtain R2DBC Connection", e)
+        }
+
+        then: 'el error se traduce a 503'
+        error != null
+        DatabaseBusyException.isAcquireTimeout(error)
+        pool.getMetrics().get().acquiredSize() == 4
+
+        cleanup:
+        held.each { Mono.from(it.close()).block() }
+    }
+}
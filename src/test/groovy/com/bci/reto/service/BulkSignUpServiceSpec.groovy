@@ -0,0 +1,125 @@
+package com.bci.reto.service
+
+import com.bci.mapper.UserMapper
+import com.bci.metrics.StageMetrics
+import com.bci.model.BulkSignUpResultDTO.Status
+import com.bci.repository.PhoneRepository
+import com.bci.repository.UserRepository
+import com.bci.service.PasswordHashingService
+import com.bci.service.RegisteredEmailFilter
+import com.bci.service.UserCache
+import com.bci.service.impl.BulkSignUpServiceImpl
+import com.fasterxml.jackson.databind.PropertyNamingStrategies
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.validation.Validation
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder
+import org.springframework.transaction.reactive.TransactionalOperator
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+
+class BulkSignUpServiceSpec extends Specification {
+    UserRepository userRepository
+    PhoneRepository phoneRepository
+    PasswordHashingService passwordHashingService
+    TransactionalOperator transactionalOperator
+    UserCache userCache
+    RegisteredEmailFilter registeredEmailFilter
+
+    def setup() {
+        userRepository = Mock()
+        phoneRepository = Mock()
+        passwordHashingService = Stub() {
+            encode(_) >> Mono.just("contraseñaEncriptada")
+        }
+        transactionalOperator = Stub() {
+            transactional(_ as Mono) >> { args -> args[0] }
+        }
+        userCache = Mock()
+        registeredEmailFilter = Mock()
+    }
+
+    private BulkSignUpServiceImpl newService(int batchSize) {
+        def objectMapper = Jackson2ObjectMapperBuilder.json()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build()
+        def validator = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator()
+        new BulkSignUpServiceImpl(userRepository, phoneRepository, passwordHashingService, new UserMapper(),
+                transactionalOperator, userCache, registeredEmailFilter, new StageMetrics(new SimpleMeterRegistry()),
+                objectMapper, validator, batchSize, Duration.ofMillis(50), 2, 8)
+    }
+
+    private static String line(String email, String password = "Password1a2") {
+        """{"name":"Juan Pérez","email":"${email}","password":"${password}","phones":[{"number":"123456789","citycode":1,"countrycode":"57"}]}"""
+    }
+
+    def "debería clasificar cada línea como creada, conflicto o inválida"() {
+        given: 'un flujo con líneas válidas, inválidas, repetidas y ya registradas'
+        def lines = Flux.just(
+                line("nuevo@ejemplo.com"),
+                line("clave@ejemplo.com", "debil"),
+                "{no es json",
+                "",
+                line("nuevo@ejemplo.com"),
+                line("existente@ejemplo.com"))
+
+        when: 'se procesa el registro masivo'
+        def results = newService(500).bulkSignUp(lines).collectList().block()
+
+        then: 'solo se consulta la base de datos por los emails que el filtro no descarta'
+        registeredEmailFilter.mightContain("nuevo@ejemplo.com") >> false
+        registeredEmailFilter.mightContain("existente@ejemplo.com") >> true
+        1 * userRepository.findExistingEmails({ it as Set == ["existente@ejemplo.com"] as Set }) >> Flux.just("existente@ejemplo.com")
+        1 * userRepository.insertAll({ it*.getEmail() == ["nuevo@ejemplo.com"] && it*.getPassword() == ["contraseñaEncriptada"] }) >> { args -> Flux.fromIterable(args[0]) }
+        1 * phoneRepository.insertAll({ it.size() == 1 && it[0].getUserId() != null }) >> { args -> Flux.fromIterable(args[0]) }
+        1 * userCache.invalidate("nuevo@ejemplo.com")
+        1 * registeredEmailFilter.add("nuevo@ejemplo.com")
+
+        and: 'se devuelve un resultado por línea no vacía, en orden'
+        results*.getLine() == [1L, 2L, 3L, 5L, 6L]
+        results*.getStatus() == [Status.CREATED, Status.INVALID, Status.INVALID, Status.CONFLICT, Status.CONFLICT]
+        results[0].getId() != null
+        results[1].getMensaje().startsWith("password: ")
+        results[2].getMensaje() == "Malformed JSON"
+        results[3].getMensaje() == "Email repeated in the same request"
+        results[4].getMensaje() == "Email already registered"
+    }
+
+    def "debería reintentar fila por fila cuando el INSERT del lote choca con un registro concurrente"() {
+        given: 'dos líneas válidas, una de ellas registrada en paralelo por otra solicitud'
+        def lines = Flux.just(line("uno@ejemplo.com"), line("dos@ejemplo.com"))
+
+        when: 'se procesa el registro masivo'
+        def results = newService(500).bulkSignUp(lines).collectList().block()
+
+        then: 'el lote falla y cada fila se inserta por separado'
+        1 * userRepository.insertAll(_) >> Flux.error(new DuplicateKeyException("UK_USERS_EMAIL"))
+        1 * userRepository.insert({ it.getEmail() == "uno@ejemplo.com" }) >> { args -> Mono.just(args[0]) }
+        1 * userRepository.insert({ it.getEmail() == "dos@ejemplo.com" }) >> Mono.error(new DuplicateKeyException("UK_USERS_EMAIL"))
+        phoneRepository.insertAll(_) >> { args -> Flux.fromIterable(args[0]) }
+
+        results*.getStatus() == [Status.CREATED, Status.CONFLICT]
+    }
+
+    def "debería insertar en lotes del tamaño configurado"() {
+        given: 'cinco líneas válidas y lotes de dos'
+        def lines = Flux.range(1, 5).map { line("usuario${it}@ejemplo.com") }
+
+        when: 'se procesa el registro masivo'
+        def results = newService(2).bulkSignUp(lines).collectList().block()
+
+        then: 'se ejecuta un INSERT multi-fila por lote'
+        3 * userRepository.insertAll(_) >> { args -> Flux.fromIterable(args[0]) }
+        phoneRepository.insertAll(_) >> { args -> Flux.fromIterable(args[0]) }
+        results.size() == 5
+        results.every { it.getStatus() == Status.CREATED }
+    }
+}
@@ -0,0 +1,99 @@
+package com.bci.reto.service
+
+import com.bci.service.impl.FastJwtIssuer
+import io.jsonwebtoken.Jwts
+import io.jsonwebtoken.SignatureAlgorithm
+import io.jsonwebtoken.security.Keys
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.KeyPairGenerator
+import java.security.spec.ECGenParameterSpec
+
+class FastJwtIssuerSpec extends Specification {
+    def key = Keys.hmacShaKeyFor("4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C".getBytes(StandardCharsets.UTF_8))
+    def issuer = new FastJwtIssuer(key)
+    def parser = Jwts.parserBuilder().setSigningKey(key).build()
+
+    def "el token debería validarse con el parser de jjwt con los mismos claims"() {
+        given:
+        def now = System.currentTimeMillis()
+        def userId = UUID.randomUUID().toString()
+
+        when:
+        def jws = parser.parseClaimsJws(issuer.issue(email, userId, 7, "jti-1", now, now + 60_000))
+
+        then:
+        jws.getHeader().getAlgorithm() == SignatureAlgorithm.HS256.getValue()
+        jws.getBody().getSubject() == email
+        jws.getBody().get("email", String) == email
+        jws.getBody().get("userId", String) == userId
+        jws.getBody().get("ver", Integer) == 7
+        jws.getBody().getId() == "jti-1"
+        jws.getBody().getIssuedAt().getTime() == now.intdiv(1000) * 1000
+        jws.getBody().getExpiration().getTime() == (now + 60_000).intdiv(1000) * 1000
+
+        where:
+        email << ["juan@ejemplo.com", "josé.peña@ejemplo.com", 'raro"\\\t@ejemplo.com', "emoji😀@ejemplo.com"]
+    }
+
+    def "debería producir la misma firma que jjwt para el mismo header y payload"() {
+        given:
+        def now = 1_700_000_000_000L
+        def token = issuer.issue("juan@ejemplo.com", null, 0, "jti-1", now, now + 60_000)
+        def parts = token.split("\\.")
+
+        when:
+        def expected = Jwts.builder()
+                .setPayload(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact()
+
+        then:
+        token == expected
+        !parser.parseClaimsJws(token).getBody().containsKey("userId")
+    }
+
+    def "debería reutilizar los buffers entre tokens de distinto largo"() {
+        given:
+        def now = System.currentTimeMillis()
+        def longEmail = ("a" * 300) + "@ejemplo.com"
+
+        expect:
+        parser.parseClaimsJws(issuer.issue(longEmail, null, 0, "jti", now, now + 60_000)).getBody().getSubject() == longEmail
+        parser.parseClaimsJws(issuer.issue("b@c.io", null, 0, "jti", now, now + 60_000)).getBody().getSubject() == "b@c.io"
+    }
+
+    def "el token ES256 debería llevar el kid y validarse con la clave pública"() {
+        given:
+        def generator = KeyPairGenerator.getInstance("EC")
+        generator.initialize(new ECGenParameterSpec("secp256r1"))
+        def keyPair = generator.generateKeyPair()
+        def es256 = FastJwtIssuer.es256("kid-1", keyPair.getPrivate())
+        def now = System.currentTimeMillis()
+
+        when:
+        def jws = Jwts.parserBuilder()
+                .setSigningKey(keyPair.getPublic())
+                .build()
+                .parseClaimsJws(es256.issue("juan@ejemplo.com", null, 3, "jti-1", now, now + 60_000))
+
+        then:
+        jws.getHeader().getAlgorithm() == SignatureAlgorithm.ES256.getValue()
+        jws.getHeader().getKeyId() == "kid-1"
+        jws.getBody().getSubject() == "juan@ejemplo.com"
+        jws.getBody().get("ver", Integer) == 3
+    }
+
+    def "debería rechazar kids que no sean Base64URL"() {
+        given:
+        def generator = KeyPairGenerator.getInstance("EC")
+        generator.initialize(new ECGenParameterSpec("secp256r1"))
+
+        when:
+        FastJwtIssuer.es256('kid"malo', generator.generateKeyPair().getPrivate())
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
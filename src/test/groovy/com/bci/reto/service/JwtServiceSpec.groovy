@@ -4,15 +4,22 @@ import com.bci.entity.User
 import com.bci.exception.InvalidTokenException
 import com.bci.service.impl.JwtServiceImpl
 import io.jsonwebtoken.JwtException
+import io.jsonwebtoken.Jwts
+import io.jsonwebtoken.SignatureAlgorithm
+import io.jsonwebtoken.security.Keys
 import spock.lang.Specification
 
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
 class JwtServiceSpec extends Specification {
     JwtServiceImpl jwtService
 
     def setup() {
         jwtService = new JwtServiceImpl(
                 "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C",
-                86400000L // 24 horas
+                86400000L, // 24 horas
+                1000L
         )
     }
 
@@ -89,4 +96,191 @@ class JwtServiceSpec extends Specification {
         then:
         thrown(InvalidTokenException)
     }
-}
\ No newline at end of file
+
+    def "should return cached claims for an already verified token"() {
+        given:
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("test@example.com")
+        def token = jwtService.generateToken(user)
+
+        when:
+        def first = jwtService.validateToken(token)
+        def second = jwtService.validateToken(token)
+
+        then:
+        first.is(second)
+        first.getEmail() == "test@example.com"
+        first.getUserId() == user.getId().toString()
+        first.getExpiration().isAfter(first.getIssuedAt())
+    }
+
+    def "should validate tokens when the verified-token cache is disabled"() {
+        given:
+        def uncached = new JwtServiceImpl("4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 0L)
+        def user = new User()
+        user.setEmail("test@example.com")
+        def token = uncached.generateToken(user)
+
+        expect:
+        uncached.validateTokenAndGetEmail(token) == "test@example.com"
+        !uncached.validateToken(token).is(uncached.validateToken(token))
+    }
+
+    def "should not cache tokens signed with a different key"() {
+        given:
+        def other = new JwtServiceImpl("otraClaveSecretaSuficientementeLargaParaHS256xx", 86400000L, 1000L)
+        def user = new User()
+        user.setEmail("test@example.com")
+        def foreignToken = other.generateToken(user)
+
+        when:
+        jwtService.validateToken(foreignToken)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def "should embed a token id and the user's token version"() {
+        given:
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("test@example.com")
+        user.setTokenVersion(3)
+
+        when:
+        def first = jwtService.validateToken(jwtService.generateToken(user))
+        def second = jwtService.validateToken(jwtService.generateToken(user))
+
+        then:
+        first.getTokenVersion() == 3
+        first.getTokenId() != null
+        first.getTokenId() != second.getTokenId()
+    }
+
+    def "should reject a revoked token even when its claims are cached"() {
+        given:
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("test@example.com")
+        def token = jwtService.generateToken(user)
+        def other = jwtService.generateToken(user)
+        def claims = jwtService.validateToken(token)
+
+        when:
+        jwtService.revoke(claims)
+        jwtService.validateToken(token)
+
+        then:
+        def e = thrown(InvalidTokenException)
+        e.getMessage() == "Token has been revoked"
+        jwtService.validateToken(other).getEmail() == "test@example.com"
+    }
+
+    def "should reject tokens issued before the user's current token version"() {
+        given:
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("test@example.com")
+        def oldToken = jwtService.generateToken(user)
+
+        when:
+        jwtService.revokeVersionsBefore(user.getId().toString(), 1)
+        user.setTokenVersion(1)
+        def newToken = jwtService.generateToken(user)
+
+        then:
+        jwtService.validateToken(newToken).getTokenVersion() == 1
+
+        when:
+        jwtService.validateToken(oldToken)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def "should sign ES256 tokens with a kid published in the JWKS"() {
+        given:
+        def es256Service = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 1000L, "ES256", Duration.ofHours(24))
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("test@example.com")
+
+        when:
+        def token = es256Service.generateToken(user)
+        def header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]))
+
+        then:
+        header.contains('"alg":"ES256"')
+        es256Service.publicKeys().getKeys().any { header.contains('"kid":"' + it.kid + '"') }
+        es256Service.validateToken(token).getEmail() == "test@example.com"
+    }
+
+    def "should keep accepting HS256 tokens issued before switching to ES256"() {
+        given:
+        def user = new User()
+        user.setEmail("test@example.com")
+        def legacyToken = jwtService.generateToken(user)
+        def es256Service = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 1000L, "ES256", Duration.ofHours(24))
+
+        expect:
+        es256Service.validateToken(legacyToken).getEmail() == "test@example.com"
+    }
+
+    def "should reject HS256 tokens that outlive the ES256 grace period"() {
+        given: 'un HS256 de 24 horas y un servicio ES256 cuyos tokens duran un minuto'
+        def user = new User()
+        user.setEmail("test@example.com")
+        def legacyToken = jwtService.generateToken(user)
+        def es256Service = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 60000L, 1000L, "ES256", Duration.ofHours(24))
+
+        when:
+        es256Service.validateToken(legacyToken)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def "should reject HS256 tokens issued after switching to ES256"() {
+        given: 'un HS256 firmado con el secreto compartido después del cambio'
+        def es256Service = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 1000L, "ES256", Duration.ofHours(24))
+        def now = System.currentTimeMillis()
+        def forged = Jwts.builder()
+                .setSubject("test@example.com")
+                .setIssuedAt(new Date(now + 60000L))
+                .setExpiration(new Date(now + 120000L))
+                .signWith(Keys.hmacShaKeyFor("4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C".getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact()
+
+        when:
+        es256Service.validateToken(forged)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def "should reject ES256 tokens whose kid is not in the key ring"() {
+        given:
+        def issuerService = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 1000L, "ES256", Duration.ofHours(24))
+        def otherService = new JwtServiceImpl(
+                "4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 86400000L, 1000L, "ES256", Duration.ofHours(24))
+        def user = new User()
+        user.setEmail("test@example.com")
+
+        when:
+        otherService.validateToken(issuerService.generateToken(user))
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def "should publish no keys in HS256 mode"() {
+        expect:
+        jwtService.publicKeys().getKeys().isEmpty()
+    }
+}
@@ -0,0 +1,129 @@
+package com.bci.reto.service
+
+import com.bci.entity.User
+import com.bci.repository.UserRepository
+import com.bci.service.impl.LastLoginServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.LocalDateTime
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class LastLoginServiceSpec extends Specification {
+    UserRepository userRepository
+    SimpleMeterRegistry registry
+
+    def setup() {
+        userRepository = Mock()
+        registry = new SimpleMeterRegistry()
+    }
+
+    private LastLoginServiceImpl newService(int maxBatchSize) {
+        new LastLoginServiceImpl(userRepository, registry, Duration.ofHours(1), maxBatchSize, Duration.ofSeconds(5))
+    }
+
+    private static User user(UUID id, LocalDateTime lastLogin) {
+        def user = new User()
+        user.setId(id)
+        user.setLastLogin(lastLogin)
+        user
+    }
+
+    def "debería agrupar los logins de un mismo usuario en una sola actualización"() {
+        given: 'varios logins del mismo usuario y uno de otro usuario'
+        def service = newService(500)
+        def juan = UUID.randomUUID()
+        def ana = UUID.randomUUID()
+        def now = LocalDateTime.now()
+        service.record(user(juan, now.minusSeconds(2)))
+        service.record(user(juan, now))
+        service.record(user(juan, now.minusSeconds(1)))
+        service.record(user(ana, now))
+
+        when: 'se vacía el buffer'
+        def written = service.flush().block()
+
+        then: 'se escribe un único lote con el último login de cada usuario'
+        1 * userRepository.updateLastLogins({ List batch ->
+            batch.size() == 2 &&
+                    batch.find { it.userId() == juan }.lastLogin() == now &&
+                    batch.find { it.userId() == ana }.lastLogin() == now
+        }) >> Mono.just(2L)
+        written == 2L
+        registry.get("bci.last.login.coalesced").counter().count() == 2
+        registry.get("bci.last.login.pending").gauge().value() == 0
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "debería respetar el tamaño máximo de lote"() {
+        given: 'tres usuarios pendientes y lotes de dos'
+        def service = newService(2)
+        3.times { service.record(user(UUID.randomUUID(), LocalDateTime.now())) }
+
+        when: 'se vacía el buffer'
+        def written = service.flush().block()
+
+        then: 'se envían dos lotes'
+        1 * userRepository.updateLastLogins({ it.size() == 2 }) >> Mono.just(2L)
+        1 * userRepository.updateLastLogins({ it.size() == 1 }) >> Mono.just(1L)
+        written == 3L
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "debería reencolar las actualizaciones cuando falla la escritura"() {
+        given: 'un login pendiente'
+        def service = newService(500)
+        def juan = UUID.randomUUID()
+        service.record(user(juan, LocalDateTime.now()))
+
+        when: 'la primera escritura falla y luego se reintenta'
+        def first = service.flush().block()
+        def second = service.flush().block()
+
+        then: 'la actualización se conserva para el siguiente ciclo'
+        1 * userRepository.updateLastLogins(_) >> Mono.error(new RuntimeException("db down"))
+        1 * userRepository.updateLastLogins({ it*.userId() == [juan] }) >> Mono.just(1L)
+        first == 0L
+        second == 1L
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "debería escribir lo pendiente al apagarse"() {
+        given: 'un login pendiente'
+        def service = newService(500)
+        service.record(user(UUID.randomUUID(), LocalDateTime.now()))
+
+        when: 'se apaga el servicio'
+        service.shutdown()
+
+        then: 'se hace un último flush'
+        1 * userRepository.updateLastLogins({ it.size() == 1 }) >> Mono.just(1L)
+    }
+
+    def "no debería perder el lote que se estaba escribiendo al apagarse"() {
+        given: 'un flush periódico que se queda esperando a la base de datos'
+        def service = new LastLoginServiceImpl(userRepository, registry, Duration.ofMillis(200), 500, Duration.ofSeconds(5))
+        def juan = UUID.randomUUID()
+        def inFlight = new CountDownLatch(1)
+        service.record(user(juan, LocalDateTime.now()))
+
+        when: 'se apaga mientras ese flush está en curso'
+        inFlight.await(5, TimeUnit.SECONDS)
+        service.shutdown()
+
+        then: 'el flush en curso se cancela'
+        1 * userRepository.updateLastLogins({ it*.userId() == [juan] }) >> { inFlight.countDown(); Mono.never() }
+
+        then: 'y su lote se escribe en el flush final'
+        1 * userRepository.updateLastLogins({ it*.userId() == [juan] }) >> Mono.just(1L)
+    }
+}
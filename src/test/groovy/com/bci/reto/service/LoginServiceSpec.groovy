@@ -2,40 +2,70 @@ package com.bci.reto.service
 
 import com.bci.entity.Phone
 import com.bci.entity.User
+import com.bci.exception.InvalidTokenException
 import com.bci.exception.UserNotFoundException
 import com.bci.exception.ValidationException
 import com.bci.mapper.UserMapper
+import com.bci.metrics.StageMetrics
 import com.bci.model.LoginRequestDTO
 import com.bci.model.PhoneResponseDTO
+import com.bci.model.RefreshSession
+import com.bci.model.RefreshTokenRequestDTO
+import com.bci.model.ResponseFields
+import com.bci.model.TokenClaims
 import com.bci.model.UserResponseDTO
-import com.bci.repository.PhoneRepository
 import com.bci.repository.UserRepository
 import com.bci.service.JwtService
+import com.bci.service.LastLoginService
 import com.bci.service.LoginService
+import com.bci.service.PasswordHashingService
+import com.bci.service.RateLimitService
+import com.bci.service.RefreshTokenService
+import com.bci.service.UserCache
+import com.bci.service.VerifiedCredentialCache
 import com.bci.service.impl.LoginServiceImpl
+import com.bci.service.impl.VerifiedCredentialCacheImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.r2dbc.spi.R2dbcTimeoutException
+import org.springframework.dao.DataAccessResourceFailureException
+import org.springframework.http.HttpHeaders
 import org.springframework.http.HttpStatus
-import org.springframework.security.crypto.password.PasswordEncoder
-import reactor.core.publisher.Flux
 import reactor.core.publisher.Mono
 import spock.lang.Specification
 
+import java.time.Duration
+import java.time.Instant
 import java.time.LocalDateTime
 
 class LoginServiceSpec extends Specification {
     UserRepository userRepository
-    PhoneRepository phoneRepository
-    PasswordEncoder passwordEncoder
+    PasswordHashingService passwordHashingService
     JwtService jwtService
     UserMapper userMapper
+    LastLoginService lastLoginService
+    UserCache userCache
+    SimpleMeterRegistry registry
+    StageMetrics stageMetrics
+    RateLimitService rateLimitService
+    VerifiedCredentialCache verifiedCredentialCache
+    RefreshTokenService refreshTokenService
     LoginService loginService
 
     def setup() {
+        registry = new SimpleMeterRegistry()
+        stageMetrics = new StageMetrics(registry)
+        rateLimitService = Mock()
+        verifiedCredentialCache = Mock()
+        refreshTokenService = Mock()
         userRepository = Mock()
-        phoneRepository = Mock()
-        passwordEncoder = Mock()
+        passwordHashingService = Mock()
         jwtService = Mock()
         userMapper = Mock()
-        loginService = new LoginServiceImpl(userRepository, phoneRepository, passwordEncoder, jwtService, userMapper)
+        lastLoginService = Mock()
+        userCache = Mock() {
+            get(_ as String, _) >> { String email, loader -> loader.apply(email) }
+        }
+        loginService = new LoginServiceImpl(userRepository, passwordHashingService, jwtService, userMapper, lastLoginService, userCache, stageMetrics, rateLimitService, verifiedCredentialCache, refreshTokenService)
     }
 
     def "debería iniciar sesión exitosamente con token válido"() {
@@ -65,6 +95,7 @@ class LoginServiceSpec extends Specification {
         phone.setNumber("123456789")
         phone.setCitycode(1)
         phone.setCountrycode("57")
+        user.setPhones([phone])
 
         def responseDTO = new UserResponseDTO(
                 user.getId(),
@@ -78,14 +109,43 @@ class LoginServiceSpec extends Specification {
         )
 
         when: 'se intenta iniciar sesión'
-        def resultado = loginService.login(authHeader).block()
+        def resultado = loginService.login(authHeader, null).block()
 
         then: 'debe procesar correctamente el inicio de sesión'
         1 * jwtService.validateTokenAndGetEmail(token) >> email
-        1 * userRepository.findByEmail(email) >> Mono.just(user)
+        1 * userRepository.findWithPhonesByEmail(email) >> Mono.just(user)
         1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
-        1 * userRepository.save(_) >> Mono.just(updatedUser)
-        1 * phoneRepository.findByUserId(_) >> Flux.just(phone)
+        1 * lastLoginService.record({ it.getToken() == "nuevo.token.jwt" && it.getLastLogin() != null })
+        1 * userCache.put({ it.getToken() == "nuevo.token.jwt" })
+        0 * userRepository.save(_)
+        1 * userMapper.toDTO({ it.getPhones() == [phone] }) >> responseDTO
+
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody() == responseDTO
+    }
+
+    def "debería reutilizar los claims verificados por el filtro sin volver a validar el token"() {
+        given: 'claims ya verificados por el filtro JWT'
+        def authHeader = "Bearer token.jwt.valido"
+        def email = "juan@ejemplo.com"
+        def claims = new TokenClaims(email, null, Instant.now(), Instant.now().plusSeconds(60), "jti", 0)
+
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail(email)
+        user.setIsActive(true)
+
+        def responseDTO = new UserResponseDTO(user.getId(), null, email, [], null, null, "nuevo.token.jwt", true)
+
+        when: 'se intenta iniciar sesión'
+        def resultado = loginService.login(authHeader, claims).block()
+
+        then: 'no se vuelve a parsear el token'
+        0 * jwtService.validateTokenAndGetEmail(_)
+        1 * userRepository.findWithPhonesByEmail(email) >> Mono.just(user)
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * lastLoginService.record(user)
+        0 * userRepository.save(_)
         1 * userMapper.toDTO(_) >> responseDTO
 
         resultado.getStatusCode() == HttpStatus.OK
@@ -97,7 +157,7 @@ class LoginServiceSpec extends Specification {
         def authHeader = "InvalidHeader"
 
         when: 'se intenta iniciar sesión'
-        def resultado = loginService.login(authHeader).block()
+        def resultado = loginService.login(authHeader, null).block()
 
         then: 'debe retornar unauthorized'
         0 * jwtService.validateTokenAndGetEmail(_)
@@ -110,7 +170,7 @@ class LoginServiceSpec extends Specification {
         def authHeader = null
 
         when: 'se intenta iniciar sesión'
-        def resultado = loginService.login(authHeader).block()
+        def resultado = loginService.login(authHeader, null).block()
 
         then: 'debe retornar unauthorized'
         0 * jwtService.validateTokenAndGetEmail(_)
@@ -123,7 +183,7 @@ class LoginServiceSpec extends Specification {
         def authHeader = "Bearer token.invalido"
 
         when: 'se intenta iniciar sesión'
-        def resultado = loginService.login(authHeader).block()
+        def resultado = loginService.login(authHeader, null).block()
 
         then: 'debe retornar unauthorized'
         1 * jwtService.validateTokenAndGetEmail("token.invalido") >> { throw new RuntimeException("Token inválido") }
@@ -137,11 +197,11 @@ class LoginServiceSpec extends Specification {
         def email = "noexiste@ejemplo.com"
 
         when: 'se intenta iniciar sesión'
-        def resultado = loginService.login(authHeader).block()
+        def resultado = loginService.login(authHeader, null).block()
 
         then: 'debe retornar unauthorized'
         1 * jwtService.validateTokenAndGetEmail("token.valido") >> email
-        1 * userRepository.findByEmail(email) >> Mono.empty()
+        1 * userRepository.findWithPhonesByEmail(email) >> Mono.empty()
         resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
         resultado.getBody() == null
     }
@@ -172,6 +232,7 @@ class LoginServiceSpec extends Specification {
         phone.setNumber("987654321")
         phone.setCitycode(2)
         phone.setCountrycode("58")
+        user.setPhones([phone])
 
         def responseDTO = new UserResponseDTO(
                 user.getId(),
@@ -188,15 +249,219 @@ class LoginServiceSpec extends Specification {
         def resultado = loginService.loginWithCredentials(request).block()
 
         then: 'debe procesar correctamente el inicio de sesión'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.just(user)
-        1 * passwordEncoder.matches(request.getPassword(), user.getPassword()) >> true
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches(request.getPassword(), user.getPassword()) >> Mono.just(true)
         1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
-        1 * userRepository.save(_) >> Mono.just(updatedUser)
-        1 * phoneRepository.findByUserId(_) >> Flux.just(phone)
-        1 * userMapper.toDTO(_) >> responseDTO
+        1 * lastLoginService.record({ it.getToken() == "nuevo.token.jwt" && it.getLastLogin() != null })
+        0 * userRepository.save(_)
+        1 * userMapper.toDTO({ it.getPhones() == [phone] }) >> responseDTO
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
+
+        and: 'cada etapa queda medida con su endpoint y resultado'
+        ["repository.find_user", "password.verify", "token.sign", "mapping"].every { stage ->
+            registry.get("bci.stage.duration")
+                    .tags("stage", stage, "endpoint", "login-authenticate", "outcome", "success")
+                    .timer().count() == 1
+        }
+    }
+
+    def "debería entregar un refresh token en el login con credenciales"() {
+        given:
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('{bcrypt}$2a$10$hash')
+        user.setIsActive(true)
+
+        when:
+        def resultado = loginService.loginWithCredentials(request).block()
+
+        then:
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches("Password1a2", '{bcrypt}$2a$10$hash') >> Mono.just(true)
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), null, user.getEmail(), [], null, null, "nuevo.token.jwt", true)
+        1 * refreshTokenService.issue(user) >> "refresh.opaco"
+
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody().getRefreshToken() == "refresh.opaco"
+    }
+
+    def "debería renovar el token sin BCrypt ni escrituras"() {
+        given: 'un refresh token vigente'
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setIsActive(true)
+
+        when: 'se renueva la sesión'
+        def resultado = loginService.refresh(new RefreshTokenRequestDTO("refresh.opaco")).block()
+
+        then: 'se rota el refresh token y se firma un nuevo token de acceso'
+        1 * refreshTokenService.find("refresh.opaco") >> new RefreshSession(user.getId(), user.getEmail())
+        1 * userRepository.findWithPhonesByEmail("juan@ejemplo.com") >> Mono.just(user)
+        1 * refreshTokenService.rotate("refresh.opaco") >> "refresh.nuevo"
+        1 * jwtService.generateToken(user) >> "nuevo.token.jwt"
+        0 * passwordHashingService._
+        0 * lastLoginService._
+
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody().getToken() == "nuevo.token.jwt"
+        resultado.getBody().getRefreshToken() == "refresh.nuevo"
+    }
+
+    def "debería rechazar la renovación cuando el refresh token no es válido"() {
+        when:
+        def resultado = loginService.refresh(new RefreshTokenRequestDTO("usado")).block()
+
+        then:
+        1 * refreshTokenService.find("usado") >> { throw new InvalidTokenException("Invalid refresh token") }
+        0 * jwtService.generateToken(_)
+        resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
+        resultado.getBody().getMensaje() == "Invalid refresh token"
+    }
+
+    def "no debería consumir el refresh token cuando el usuario fue desactivado"() {
+        given:
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setIsActive(false)
+
+        when:
+        def resultado = loginService.refresh(new RefreshTokenRequestDTO("refresh.opaco")).block()
+
+        then:
+        1 * refreshTokenService.find("refresh.opaco") >> new RefreshSession(user.getId(), user.getEmail())
+        1 * userRepository.findWithPhonesByEmail("juan@ejemplo.com") >> Mono.just(user)
+        0 * refreshTokenService.rotate(_)
+        resultado.getStatusCode() == HttpStatus.UNAUTHORIZED
+    }
+
+    def "debería revocar sólo el token presentado al cerrar sesión"() {
+        given:
+        def claims = new TokenClaims("juan@ejemplo.com", UUID.randomUUID().toString(), Instant.now(),
+                Instant.now().plusSeconds(60), "jti", 0)
+
+        when:
+        def resultado = loginService.logout(claims, false).block()
+
+        then:
+        1 * jwtService.revoke(claims)
+        0 * userRepository._
+        0 * refreshTokenService._
+        resultado.getStatusCode() == HttpStatus.NO_CONTENT
+    }
+
+    def "debería revocar todas las sesiones incrementando la versión de token"() {
+        given:
+        def userId = UUID.randomUUID()
+        def claims = new TokenClaims("juan@ejemplo.com", userId.toString(), Instant.now(),
+                Instant.now().plusSeconds(60), "jti", 2)
+
+        when:
+        def resultado = loginService.logout(claims, true).block()
+
+        then:
+        1 * jwtService.revoke(claims)
+        1 * userRepository.incrementTokenVersion(userId) >> Mono.just(1)
+        1 * userRepository.findTokenVersion(userId) >> Mono.just(3)
+        1 * jwtService.revokeVersionsBefore(userId.toString(), 3)
+        1 * refreshTokenService.revokeAll(userId)
+        1 * userCache.invalidate("juan@ejemplo.com")
+        resultado.getStatusCode() == HttpStatus.NO_CONTENT
+    }
+
+    def "debería omitir BCrypt cuando las credenciales ya fueron verificadas"() {
+        given: 'credenciales verificadas hace poco'
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('{bcrypt}$2a$10$hash')
+        user.setIsActive(true)
+
+        when: 'se inicia sesión nuevamente'
+        def resultado = loginService.loginWithCredentials(request).block()
+
+        then: 'no se ejecuta BCrypt'
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * verifiedCredentialCache.isVerified(user, "Password1a2") >> true
+        0 * passwordHashingService._
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), null, user.getEmail(), [], null, null, "nuevo.token.jwt", true)
+
+        resultado.getStatusCode() == HttpStatus.OK
+    }
+
+    def "debería recordar las credenciales verificadas con BCrypt"() {
+        given:
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('{bcrypt}$2a$10$hash')
+        user.setIsActive(true)
+
+        when:
+        loginService.loginWithCredentials(request).block()
+
+        then:
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches("Password1a2", '{bcrypt}$2a$10$hash') >> Mono.just(true)
+        1 * verifiedCredentialCache.recordVerified(user, "Password1a2")
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+    }
+
+    def "debería regenerar en segundo plano el hash guardado con otro costo"() {
+        given: 'un usuario cuyo hash fue generado con un costo anterior'
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('$2a$10$hashAnterior')
+        user.setIsActive(true)
+
+        when: 'inicia sesión con la contraseña correcta'
+        def resultado = loginService.loginWithCredentials(request).block()
+
+        then: 'el login responde y el hash se reemplaza con el costo actual'
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches(request.getPassword(), '$2a$10$hashAnterior') >> Mono.just(true)
+        1 * passwordHashingService.needsRehash('$2a$10$hashAnterior') >> true
+        1 * passwordHashingService.encode(request.getPassword()) >> Mono.just('{bcrypt}$2a$12$hashNuevo')
+        1 * userRepository.updatePassword(user.getId(), '{bcrypt}$2a$12$hashNuevo') >> Mono.just(1)
+        1 * userCache.invalidate("juan@ejemplo.com")
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), null, user.getEmail(), [], null, null, "nuevo.token.jwt", true)
+
+        resultado.getStatusCode() == HttpStatus.OK
+    }
+
+    def "debería retornar bad request sin regenerar el hash cuando la contraseña es incorrecta"() {
+        given:
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Otra1clave2")
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('$2a$10$hashAnterior')
+        user.setIsActive(true)
+
+        when:
+        loginService.loginWithCredentials(request).block()
+
+        then:
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches(_, _) >> Mono.just(false)
+        0 * passwordHashingService.needsRehash(_)
+        0 * passwordHashingService.encode(_)
+        0 * userRepository.updatePassword(_, _)
     }
 
     def "debería retornar not found cuando el usuario no existe en login con credenciales"() {
@@ -207,12 +472,44 @@ class LoginServiceSpec extends Specification {
         def resultado = loginService.loginWithCredentials(request).block()
 
         then: 'debe retornar not found'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.empty()
-        0 * passwordEncoder.matches(_, _)
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.empty()
+        0 * passwordHashingService.matches(_, _)
         resultado.getStatusCode() == HttpStatus.NOT_FOUND
         resultado.getBody() == null
     }
 
+    def "debería retornar service unavailable cuando no hay conexiones libres en el pool"() {
+        given: 'un pool de conexiones saturado'
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+        def acquireTimeout = new DataAccessResourceFailureException("Failed to obtain R2DBC Connection",
+                new R2dbcTimeoutException("Connection acquisition timed out after 2000ms"))
+
+        when: 'se intenta iniciar sesión'
+        def resultado = loginService.loginWithCredentials(request).block()
+
+        then: 'se responde 503 con Retry-After sin llegar a BCrypt'
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.error(acquireTimeout)
+        0 * passwordHashingService.matches(_, _)
+        resultado.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+        resultado.getHeaders().getFirst(HttpHeaders.RETRY_AFTER) == "1"
+        resultado.getBody().getMensaje() == "Database busy, please retry later"
+    }
+
+    def "debería retornar too many requests cuando el email supera su límite"() {
+        given: 'un email que agotó sus intentos'
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+
+        when: 'se intenta iniciar sesión'
+        def resultado = loginService.loginWithCredentials(request).block()
+
+        then: 'se responde 429 sin consultar la base de datos ni ejecutar BCrypt'
+        1 * rateLimitService.tryAcquireForEmail("juan@ejemplo.com") >> 4L
+        0 * userRepository.findWithPhonesByEmail(_)
+        0 * passwordHashingService.matches(_, _)
+        resultado.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        resultado.getHeaders().getFirst(HttpHeaders.RETRY_AFTER) == "4"
+    }
+
     def "debería retornar bad request cuando la contraseña es incorrecta"() {
         given: 'un usuario con contraseña incorrecta'
         def request = new LoginRequestDTO("juan@ejemplo.com", "contraseñaIncorrecta")
@@ -228,8 +525,8 @@ class LoginServiceSpec extends Specification {
         def resultado = loginService.loginWithCredentials(request).block()
 
         then: 'debe retornar bad request'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.just(user)
-        1 * passwordEncoder.matches(request.getPassword(), user.getPassword()) >> false
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches(request.getPassword(), user.getPassword()) >> Mono.just(false)
         0 * jwtService.generateToken(_)
         resultado.getStatusCode() == HttpStatus.BAD_REQUEST
         resultado.getBody() == null
@@ -250,8 +547,8 @@ class LoginServiceSpec extends Specification {
         def resultado = loginService.loginWithCredentials(request).block()
 
         then: 'debe retornar bad request'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.just(user)
-        0 * passwordEncoder.matches(_, _)
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        0 * passwordHashingService.matches(_, _)
         resultado.getStatusCode() == HttpStatus.BAD_REQUEST
         resultado.getBody() == null
     }
@@ -293,14 +590,105 @@ class LoginServiceSpec extends Specification {
         def resultado = loginService.loginWithCredentials(request).block()
 
         then: 'debe procesar correctamente el inicio de sesión sin teléfonos'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.just(user)
-        1 * passwordEncoder.matches(request.getPassword(), user.getPassword()) >> true
+        1 * userRepository.findWithPhonesByEmail(request.getEmail()) >> Mono.just(user)
+        1 * passwordHashingService.matches(request.getPassword(), user.getPassword()) >> Mono.just(true)
         1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
-        1 * userRepository.save(_) >> Mono.just(updatedUser)
-        1 * phoneRepository.findByUserId(_) >> Flux.empty()
+        1 * lastLoginService.record({ it.getToken() == "nuevo.token.jwt" && it.getLastLogin() != null })
+        0 * userRepository.save(_)
         1 * userMapper.toDTO(_) >> responseDTO
 
         resultado.getStatusCode() == HttpStatus.OK
         resultado.getBody() == responseDTO
     }
-}
\ No newline at end of file
+
+    def "no debería consultar los teléfonos cuando el cliente sólo pide el token"() {
+        given: 'un usuario que no está en caché'
+        def authHeader = "Bearer token.jwt.valido"
+        def email = "juan@ejemplo.com"
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setName("Juan Pérez")
+        user.setEmail(email)
+        user.setIsActive(true)
+        user.setPhones(null)
+
+        when: 'se inicia sesión pidiendo sólo id y token'
+        def resultado = loginService.login(authHeader, null, ResponseFields.parse("id,token", null)).block()
+
+        then: 'se lee sólo la fila del usuario y la respuesta trae los campos pedidos'
+        1 * jwtService.validateTokenAndGetEmail("token.jwt.valido") >> email
+        1 * userCache.getIfPresent(email) >> Mono.empty()
+        1 * userRepository.findWithoutPhonesByEmail(email) >> Mono.just(user)
+        0 * userRepository.findWithPhonesByEmail(_)
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), "Juan Pérez", email, [], null, null, "nuevo.token.jwt", true)
+
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody() == new UserResponseDTO(user.getId(), null, null, null, null, null, "nuevo.token.jwt", null)
+    }
+
+    def "debería devolver la representación mínima con Prefer: return=minimal"() {
+        given: 'un usuario ya cacheado'
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Password1a2")
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('{bcrypt}$2a$10$hash')
+        user.setIsActive(true)
+
+        when: 'se inicia sesión con credenciales prefiriendo la respuesta mínima'
+        def resultado = loginService.loginWithCredentials(request, ResponseFields.parse(null, "return=minimal")).block()
+
+        then: 'se usa la caché, sin consultar la base de datos'
+        1 * userCache.getIfPresent("juan@ejemplo.com") >> Mono.just(user)
+        0 * userRepository.findWithoutPhonesByEmail(_)
+        0 * userRepository.findWithPhonesByEmail(_)
+        1 * passwordHashingService.matches("Password1a2", user.getPassword()) >> Mono.just(true)
+        1 * jwtService.generateToken(_) >> "nuevo.token.jwt"
+        1 * refreshTokenService.issue(_) >> "refresh"
+        1 * userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), "Juan", "juan@ejemplo.com", [], null, null, "nuevo.token.jwt", true)
+
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getHeaders().getFirst("Preference-Applied") == "return=minimal"
+        resultado.getBody() == new UserResponseDTO(user.getId(), null, null, null, null, null, "nuevo.token.jwt", "refresh", null)
+    }
+
+    def "debería rechazar campos desconocidos"() {
+        when:
+        ResponseFields.parse(fields, null)
+
+        then:
+        def e = thrown(ValidationException)
+        e.getMessage().startsWith(mensaje)
+
+        where:
+        fields           | mensaje
+        "token,password" | "Unknown field: password"
+        " , "            | "fields must name at least one of"
+    }
+
+    def "con la caché de credenciales habilitada un segundo login no debería volver a ejecutar BCrypt"() {
+        given: 'el servicio con una caché de credenciales real'
+        def service = new LoginServiceImpl(userRepository, passwordHashingService, jwtService, userMapper, lastLoginService, userCache, stageMetrics, rateLimitService,
+                new VerifiedCredentialCacheImpl(registry, true, 100, Duration.ofMinutes(1)), refreshTokenService)
+        def request = new LoginRequestDTO("juan@ejemplo.com", "Pässword1a2")
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword('{bcrypt}$2a$10$hash')
+        user.setIsActive(true)
+        userRepository.findWithPhonesByEmail("juan@ejemplo.com") >> { Mono.just(user) }
+        jwtService.generateToken(_) >> "nuevo.token.jwt"
+        userMapper.toDTO(_) >> new UserResponseDTO(user.getId(), null, "juan@ejemplo.com", [], null, null, "nuevo.token.jwt", true)
+
+        when: 'el cliente inicia sesión dos veces con las mismas credenciales'
+        def primero = service.loginWithCredentials(request).block()
+        def segundo = service.loginWithCredentials(request).block()
+
+        then: 'sólo el primero verifica la contraseña con BCrypt'
+        1 * passwordHashingService.matches("Pässword1a2", '{bcrypt}$2a$10$hash') >> Mono.just(true)
+        primero.getStatusCode() == HttpStatus.OK
+        segundo.getStatusCode() == HttpStatus.OK
+        registry.get("cache.gets").tag("cache", "credentials").tag("result", "hit").functionCounter().count() == 1
+    }
+}
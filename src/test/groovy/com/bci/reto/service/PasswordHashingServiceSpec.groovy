@@ -0,0 +1,111 @@
+package com.bci.reto.service
+
+import com.bci.exception.ServiceUnavailableException
+import com.bci.service.impl.PasswordHashingServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder
+import org.springframework.security.crypto.password.PasswordEncoder
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PasswordHashingServiceSpec extends Specification {
+
+    def "debería codificar y verificar contraseñas fuera del hilo llamador"() {
+        given: 'un servicio con BCrypt de costo bajo'
+        def registry = new SimpleMeterRegistry()
+        def service = new PasswordHashingServiceImpl(new BCryptPasswordEncoder(4), registry, 2, 4, 1)
+
+        when: 'se codifica y verifica una contraseña'
+        def encoded = service.encode("Password1a2").block()
+        def matches = service.matches("Password1a2", encoded).block()
+        def mismatch = service.matches("Otra1clave2", encoded).block()
+
+        then: 'el resultado es correcto y se registran las métricas'
+        encoded.startsWith('$2a$04$')
+        matches
+        !mismatch
+        registry.get("bci.password.hashing.duration").tag("operation", "encode").timer().count() == 1
+        registry.get("bci.password.hashing.duration").tag("operation", "matches").timer().count() == 2
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "debería rechazar inmediatamente cuando la cola está llena"() {
+        given: 'un pool de un hilo con cola de un elemento ocupado por un hash bloqueado'
+        def release = new CountDownLatch(1)
+        def encoder = Stub(PasswordEncoder) {
+            encode(_) >> { release.await(5, TimeUnit.SECONDS); "hash" }
+        }
+        def registry = new SimpleMeterRegistry()
+        def service = new PasswordHashingServiceImpl(encoder, registry, 1, 1, 3)
+        def running = service.encode("a").toFuture()
+        def queued = service.encode("b").toFuture()
+
+        when: 'llega una tercera solicitud'
+        service.encode("c").block()
+
+        then: 'se rechaza con 503 y Retry-After'
+        def e = thrown(ServiceUnavailableException)
+        e.getRetryAfterSeconds() == 3
+        registry.get("bci.password.hashing.rejected").counter().count() == 1
+
+        cleanup:
+        release.countDown()
+        running.get(5, TimeUnit.SECONDS)
+        queued.get(5, TimeUnit.SECONDS)
+        service.shutdown()
+    }
+
+    def "debería continuar fuera del pool de BCrypt y propagar también los Error"() {
+        given: 'un encoder que falla con un Error para una contraseña'
+        def encoder = Stub(PasswordEncoder) {
+            encode("ok") >> "hash"
+            encode("boom") >> { throw new AssertionError("boom") }
+        }
+        def service = new PasswordHashingServiceImpl(encoder, new SimpleMeterRegistry(), 1, 4, 1)
+
+        when:
+        def thread = service.encode("ok").map { Thread.currentThread().getName() }.block()
+        service.encode("boom").toFuture().get(5, TimeUnit.SECONDS)
+
+        then: 'lo que sigue al hash no corre en el pool y el Error llega al suscriptor en vez de colgarlo'
+        !thread.startsWith("password-hashing-")
+        def e = thrown(ExecutionException)
+        e.getCause() instanceof AssertionError
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "debería compartir una verificación en curso con la misma contraseña y hash"() {
+        given: 'un BCrypt bloqueado que cuenta las verificaciones'
+        def release = new CountDownLatch(1)
+        def calls = new AtomicInteger()
+        def encoder = Stub(PasswordEncoder) {
+            matches(_, _) >> { calls.incrementAndGet(); release.await(5, TimeUnit.SECONDS); true }
+        }
+        def registry = new SimpleMeterRegistry()
+        def service = new PasswordHashingServiceImpl(encoder, registry, 2, 4, 1)
+
+        when: 'llegan dos verificaciones idénticas y una distinta mientras la primera sigue en curso'
+        def first = service.matches("Password1a2", "hash").toFuture()
+        def second = service.matches("Password1a2", "hash").toFuture()
+        def other = service.matches("Otra1clave2", "hash").toFuture()
+        release.countDown()
+
+        then: 'las idénticas comparten una ejecución de BCrypt'
+        first.get(5, TimeUnit.SECONDS)
+        second.get(5, TimeUnit.SECONDS)
+        other.get(5, TimeUnit.SECONDS)
+        calls.get() == 2
+        registry.get("bci.singleflight.coalesced").tag("operation", "password.matches").counter().count() == 1
+
+        cleanup:
+        service.shutdown()
+    }
+}
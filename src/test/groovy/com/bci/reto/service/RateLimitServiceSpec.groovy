@@ -0,0 +1,98 @@
+package com.bci.reto.service
+
+import com.bci.service.impl.RateLimitServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class RateLimitServiceSpec extends Specification {
+    SimpleMeterRegistry registry
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+    }
+
+    private RateLimitServiceImpl newService(double ipPermitsPerSecond, int ipBurst, boolean enabled = true) {
+        new RateLimitServiceImpl(registry, enabled, ipPermitsPerSecond, ipBurst, 1.0, 2, 1000, Duration.ofMinutes(1))
+    }
+
+    def "debería admitir la ráfaga configurada y rechazar la siguiente solicitud"() {
+        given: 'un límite de 1 solicitud por segundo con ráfaga de 3'
+        def service = newService(1.0, 3)
+
+        when: 'la misma IP hace 4 solicitudes seguidas'
+        def results = (1..4).collect { service.tryAcquireForIp("10.0.0.1") }
+
+        then: 'las 3 primeras pasan y la cuarta debe esperar un segundo'
+        results == [0L, 0L, 0L, 1L]
+        registry.get("bci.rate.limit.rejected").tag("scope", "ip").counter().count() == 1
+    }
+
+    def "debería reponer permisos con el paso del tiempo"() {
+        given: 'un límite de 20 solicitudes por segundo sin ráfaga'
+        def service = newService(20.0, 1)
+
+        when: 'se agota el permiso y se espera el intervalo de emisión'
+        def first = service.tryAcquireForIp("10.0.0.1")
+        def second = service.tryAcquireForIp("10.0.0.1")
+        Thread.sleep(60)
+        def third = service.tryAcquireForIp("10.0.0.1")
+
+        then: 'el permiso se repone'
+        first == 0L
+        second > 0L
+        third == 0L
+    }
+
+    def "debería llevar buckets independientes por IP y por email"() {
+        given: 'un límite sin ráfaga'
+        def service = newService(1.0, 1)
+
+        expect: 'cada clave tiene su propio bucket y el email no distingue mayúsculas'
+        service.tryAcquireForIp("10.0.0.1") == 0L
+        service.tryAcquireForIp("10.0.0.2") == 0L
+        service.tryAcquireForIp("10.0.0.1") > 0L
+        service.tryAcquireForEmail("Juan@Ejemplo.com") == 0L
+        service.tryAcquireForEmail("juan@ejemplo.com") == 0L
+        service.tryAcquireForEmail("juan@ejemplo.com") > 0L
+        registry.get("bci.rate.limit.keys").tag("scope", "ip").gauge().value() == 2
+    }
+
+    def "no debería admitir más que la ráfaga bajo concurrencia"() {
+        given: 'una ráfaga de 50 permisos con reposición despreciable'
+        def service = newService(0.001, 50)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when: '8 hilos compiten por 400 permisos de la misma IP'
+        def tasks = (1..400).collect { { -> service.tryAcquireForIp("10.0.0.1") } as Callable<Long> }
+        def admitted = executor.invokeAll(tasks).count { it.get() == 0L }
+
+        then: 'se admiten exactamente 50'
+        admitted == 50
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "debería admitir todo cuando está deshabilitado"() {
+        given: 'el limitador deshabilitado'
+        def service = newService(1.0, 1, false)
+
+        expect:
+        (1..10).every { service.tryAcquireForIp("10.0.0.1") == 0L }
+    }
+
+    def "debería rechazar una tasa de permisos que no sea positiva"() {
+        when:
+        newService(permitsPerSecond, 1)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        permitsPerSecond << [0.0d, -1.0d, Double.NaN]
+    }
+}
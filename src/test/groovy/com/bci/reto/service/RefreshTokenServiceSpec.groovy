@@ -0,0 +1,78 @@
+package com.bci.reto.service
+
+import com.bci.entity.User
+import com.bci.exception.InvalidTokenException
+import com.bci.service.impl.RefreshTokenServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+
+class RefreshTokenServiceSpec extends Specification {
+    SimpleMeterRegistry registry
+    RefreshTokenServiceImpl service
+    User user
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+        service = new RefreshTokenServiceImpl(registry, Duration.ofDays(1), 1000)
+        user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+    }
+
+    def "debería emitir tokens opacos asociados al usuario"() {
+        when:
+        def token = service.issue(user)
+        def session = service.find(token)
+
+        then:
+        token.length() >= 43
+        session.getUserId() == user.getId()
+        session.getEmail() == "juan@ejemplo.com"
+    }
+
+    def "debería invalidar el token al rotarlo y aceptar sólo el nuevo"() {
+        given:
+        def token = service.issue(user)
+
+        when:
+        def rotated = service.rotate(token)
+
+        then:
+        rotated != token
+        service.find(rotated).getUserId() == user.getId()
+
+        when:
+        service.rotate(token)
+
+        then:
+        thrown(InvalidTokenException)
+        registry.get("bci.refresh.tokens.rotated").counter().count() == 1
+        registry.get("bci.refresh.tokens.rejected").counter().count() == 1
+    }
+
+    def "debería rechazar tokens desconocidos o nulos"() {
+        when:
+        service.find(token)
+
+        then:
+        thrown(InvalidTokenException)
+
+        where:
+        token << ["desconocido", null]
+    }
+
+    def "debería descartar el token al cumplirse su TTL"() {
+        given:
+        def shortLived = new RefreshTokenServiceImpl(new SimpleMeterRegistry(), Duration.ofMillis(50), 1000)
+        def token = shortLived.issue(user)
+
+        when:
+        Thread.sleep(100)
+        shortLived.find(token)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+}
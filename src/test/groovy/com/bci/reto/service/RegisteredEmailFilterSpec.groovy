@@ -0,0 +1,69 @@
+package com.bci.reto.service
+
+import com.bci.repository.UserRepository
+import com.bci.service.impl.RegisteredEmailFilterImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+class RegisteredEmailFilterSpec extends Specification {
+    UserRepository userRepository
+    SimpleMeterRegistry registry
+    RegisteredEmailFilterImpl filter
+
+    def setup() {
+        userRepository = Mock()
+        registry = new SimpleMeterRegistry()
+        filter = new RegisteredEmailFilterImpl(userRepository, registry, 1000, 0.01)
+    }
+
+    def "debería responder posible mientras el filtro no se ha construido"() {
+        expect:
+        filter.mightContain("cualquiera@ejemplo.com")
+    }
+
+    def "debería contener todos los emails registrados tras reconstruir"() {
+        given: 'una tabla de usuarios con emails registrados'
+        def emails = (1..500).collect { "usuario${it}@ejemplo.com".toString() }
+
+        when: 'se reconstruye el filtro'
+        def count = filter.rebuild().block()
+
+        then: 'se recorre la tabla una vez'
+        1 * userRepository.count() >> Mono.just(500L)
+        1 * userRepository.findAllEmails() >> Flux.fromIterable(emails)
+        count == 500
+        emails.every { filter.mightContain(it) }
+        filter.approximateSize() == 500
+        registry.get("bci.email.filter.size").gauge().value() == 500
+        registry.get("bci.email.filter.rebuild").timer().count() == 1
+    }
+
+    def "debería descartar la mayoría de los emails no registrados"() {
+        given: 'un filtro construido con 500 emails'
+        userRepository.count() >> Mono.just(500L)
+        userRepository.findAllEmails() >> Flux.fromIterable((1..500).collect { "usuario${it}@ejemplo.com".toString() })
+        filter.rebuild().block()
+
+        when: 'se consultan emails que no existen'
+        def falsePositives = (1..10_000).count { filter.mightContain("nuevo${it}@ejemplo.com") }
+
+        then: 'la tasa de falsos positivos queda cerca de la configurada'
+        falsePositives < 300
+        filter.expectedFalsePositiveRate() < 0.03
+    }
+
+    def "debería incluir los emails agregados después de construir el filtro"() {
+        given: 'un filtro construido sin usuarios'
+        userRepository.count() >> Mono.just(0L)
+        userRepository.findAllEmails() >> Flux.empty()
+        filter.rebuild().block()
+
+        when: 'se registra un email nuevo'
+        filter.add("juan@ejemplo.com")
+
+        then: 'el filtro lo reporta como posible'
+        filter.mightContain("juan@ejemplo.com")
+    }
+}
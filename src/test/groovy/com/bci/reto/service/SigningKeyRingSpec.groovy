@@ -0,0 +1,84 @@
+package com.bci.reto.service
+
+import com.bci.service.impl.SigningKeyRing
+import io.jsonwebtoken.Jwts
+import io.jsonwebtoken.SignatureAlgorithm
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class SigningKeyRingSpec extends Specification {
+    Instant now = Instant.parse("2025-08-08T12:00:00Z")
+    Clock clock = Stub(Clock) {
+        instant() >> { now }
+    }
+    SigningKeyRing ring = new SigningKeyRing(Duration.ofHours(24), Duration.ofMinutes(15), clock)
+
+    def "debería publicar la clave activa y la siguiente con kid igual al thumbprint RFC 7638"() {
+        when:
+        def jwks = ring.jwks()
+
+        then:
+        jwks.getKeys().size() == 2
+        jwks.getKeys()*.get("kid") == [ring.current().kid(), jwks.getKeys()[1].get("kid")]
+        jwks.getKeys().every { it.kty == "EC" && it.crv == "P-256" && it.alg == "ES256" && it.use == "sig" }
+        jwks.getKeys().every { jwk ->
+            def canonical = '{"crv":"P-256","kty":"EC","x":"' + jwk.x + '","y":"' + jwk.y + '"}'
+            def hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.US_ASCII))
+            jwk.kid == Base64.getUrlEncoder().withoutPadding().encodeToString(hash)
+        }
+        jwks.getEtag().startsWith('"')
+    }
+
+    def "el token firmado debería verificarse con la clave pública de su kid"() {
+        given:
+        def key = ring.current()
+        def millis = System.currentTimeMillis()
+        def token = key.issuer().issue("juan@ejemplo.com", null, 0, "jti-1", millis, millis + 60_000)
+
+        when:
+        def jws = Jwts.parserBuilder()
+                .setSigningKey(ring.verificationKey(key.kid()))
+                .build()
+                .parseClaimsJws(token)
+
+        then:
+        jws.getHeader().getAlgorithm() == SignatureAlgorithm.ES256.getValue()
+        jws.getHeader().getKeyId() == key.kid()
+        jws.getBody().getSubject() == "juan@ejemplo.com"
+    }
+
+    def "al rotar debería activar la clave ya publicada y conservar la anterior hasta que venzan sus tokens"() {
+        given:
+        def first = ring.current()
+        def announced = ring.jwks().getKeys()[1].get("kid")
+        def etag = ring.jwks().getEtag()
+
+        when:
+        now = now.plus(Duration.ofHours(24))
+        def second = ring.current()
+
+        then:
+        second.kid() == announced
+        ring.verificationKey(first.kid()) != null
+        ring.jwks().getKeys().size() == 3
+        ring.jwks().getEtag() != etag
+
+        when:
+        now = now.plus(Duration.ofMinutes(15))
+
+        then:
+        ring.verificationKey(first.kid()) == null
+        ring.current().kid() == second.kid()
+        ring.jwks().getKeys().size() == 2
+    }
+
+    def "no debería reconocer kids ajenos"() {
+        expect:
+        ring.verificationKey("desconocido") == null
+    }
+}
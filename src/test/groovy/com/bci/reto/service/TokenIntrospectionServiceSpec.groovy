@@ -0,0 +1,92 @@
+package com.bci.reto.service
+
+import com.bci.entity.User
+import com.bci.metrics.StageMetrics
+import com.bci.repository.UserRepository
+import com.bci.service.UserCache
+import com.bci.service.impl.JwtServiceImpl
+import com.bci.service.impl.TokenIntrospectionServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.HttpStatus
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+class TokenIntrospectionServiceSpec extends Specification {
+    JwtServiceImpl jwtService
+    UserRepository userRepository
+    UserCache userCache
+    SimpleMeterRegistry registry
+    TokenIntrospectionServiceImpl service
+    User user
+
+    def setup() {
+        jwtService = new JwtServiceImpl("4qhq8LrEBfYcaRHxhdb9zURb2rf8e7Ud8GLO9L6brain2rvUKu7C", 900000L, 1000L)
+        userRepository = Mock()
+        userCache = Mock() {
+            get(_ as String, _) >> { String email, loader -> loader.apply(email) }
+        }
+        registry = new SimpleMeterRegistry()
+        service = new TokenIntrospectionServiceImpl(jwtService, userRepository, userCache, new StageMetrics(registry),
+                registry, 2, 2, 3)
+
+        user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail("juan@ejemplo.com")
+        user.setIsActive(true)
+    }
+
+    def "debería responder un resultado por token en el mismo orden y sin consultar la base de datos"() {
+        given:
+        def token = jwtService.generateToken(user)
+        def revoked = jwtService.generateToken(user)
+        jwtService.revoke(jwtService.validateToken(revoked))
+
+        when:
+        def results = service.introspect(Flux.just(token, "no.es.token", '"' + token + '"', revoked, " "), false)
+                .collectList().block()
+
+        then:
+        results*.active == [true, false, true, false]
+        results[0].getEmail() == "juan@ejemplo.com"
+        results[0].getUserId() == user.getId().toString()
+        results[0].getExp() == jwtService.validateToken(token).getExpiration().getEpochSecond()
+        results[1].getEmail() == null
+        0 * userRepository._
+        registry.get("bci.token.introspection").tag("result", "active").counter().count() == 2
+    }
+
+    def "debería marcar inactivo el token de un usuario desactivado cuando se pide comprobar el usuario"() {
+        given:
+        def token = jwtService.generateToken(user)
+        def disabled = new User()
+        disabled.setId(user.getId())
+        disabled.setEmail(user.getEmail())
+        disabled.setIsActive(false)
+
+        when:
+        def results = service.introspect(Flux.just(token, "no.es.token"), true).collectList().block()
+
+        then:
+        1 * userRepository.findWithPhonesByEmail("juan@ejemplo.com") >> Mono.just(disabled)
+        results*.active == [false, false]
+    }
+
+    def "debería rechazar un arreglo con más tokens que el máximo"() {
+        when:
+        def resultado = service.introspectAll(["a", "b", "c", "d"], false).block()
+
+        then:
+        resultado.getStatusCode() == HttpStatus.BAD_REQUEST
+        resultado.getBody().getMensaje() == "Too many tokens, maximum is 3"
+    }
+
+    def "debería responder la lista completa para un arreglo dentro del máximo"() {
+        when:
+        def resultado = service.introspectAll([jwtService.generateToken(user), "x"], false).block()
+
+        then:
+        resultado.getStatusCode() == HttpStatus.OK
+        resultado.getBody()*.active == [true, false]
+    }
+}
@@ -0,0 +1,140 @@
+package com.bci.reto.service
+
+import com.bci.entity.Phone
+import com.bci.entity.User
+import com.bci.service.impl.CaffeineUserCache
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import reactor.core.publisher.Mono
+import reactor.core.publisher.Sinks
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.Function
+
+class UserCacheSpec extends Specification {
+    SimpleMeterRegistry registry
+    CaffeineUserCache userCache
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(1), registry)
+    }
+
+    private static User user(String email) {
+        def phone = new Phone()
+        phone.setNumber("123456789")
+        phone.setCitycode(1)
+        phone.setCountrycode("57")
+
+        def user = new User()
+        user.setId(UUID.randomUUID())
+        user.setEmail(email)
+        user.setToken("token.original")
+        user.setPhones([phone])
+        user
+    }
+
+    def "debería consultar el repositorio solo en el primer acceso"() {
+        given: 'un loader que cuenta las consultas'
+        def stored = user("juan@ejemplo.com")
+        Function<String, Mono<User>> loader = Mock()
+
+        when: 'se busca dos veces el mismo email'
+        def first = userCache.get("juan@ejemplo.com", loader).block()
+        def second = userCache.get("juan@ejemplo.com", loader).block()
+
+        then: 'solo la primera búsqueda llega al loader'
+        1 * loader.apply("juan@ejemplo.com") >> Mono.just(stored)
+        first.getId() == stored.getId()
+        second.getId() == stored.getId()
+        second.getPhones()*.getNumber() == ["123456789"]
+        registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count() == 1
+        registry.get("cache.gets").tag("cache", "users").tag("result", "miss").functionCounter().count() == 1
+    }
+
+    def "debería entregar copias que no alteran el valor cacheado"() {
+        given: 'un usuario en caché'
+        userCache.put(user("juan@ejemplo.com"))
+
+        when: 'quien lo consume modifica la copia recibida'
+        def copy = userCache.get("juan@ejemplo.com", { Mono.empty() }).block()
+        copy.setToken("token.modificado")
+        copy.getPhones().clear()
+
+        then: 'la caché conserva el estado original'
+        def cached = userCache.get("juan@ejemplo.com", { Mono.empty() }).block()
+        cached.getToken() == "token.original"
+        cached.getPhones().size() == 1
+    }
+
+    def "debería volver al repositorio tras invalidar la entrada"() {
+        given: 'un usuario en caché'
+        userCache.put(user("juan@ejemplo.com"))
+        def reloaded = user("juan@ejemplo.com")
+
+        when: 'se invalida y se vuelve a buscar'
+        userCache.invalidate("juan@ejemplo.com")
+        def result = userCache.get("juan@ejemplo.com", { Mono.just(reloaded) }).block()
+
+        then: 'se usa el valor recargado'
+        result.getId() == reloaded.getId()
+    }
+
+    def "no debería cachear búsquedas sin resultado"() {
+        given: 'un loader que cuenta las consultas'
+        Function<String, Mono<User>> loader = Mock()
+
+        when: 'se busca dos veces un email inexistente'
+        userCache.get("nadie@ejemplo.com", loader).block()
+        userCache.get("nadie@ejemplo.com", loader).block()
+
+        then: 'ambas búsquedas llegan al loader'
+        2 * loader.apply("nadie@ejemplo.com") >> Mono.empty()
+    }
+
+    def "no debería guardar una carga que estaba en curso cuando se invalidó el email"() {
+        given: 'una carga que leyó el usuario antes de que se modificara'
+        def pending = Sinks.<User>one()
+        Function<String, Mono<User>> loader = Mock()
+
+        when: 'se invalida el email mientras la carga sigue en curso'
+        def inFlight = userCache.get("juan@ejemplo.com", loader).toFuture()
+        userCache.invalidate("juan@ejemplo.com")
+        pending.tryEmitValue(user("juan@ejemplo.com"))
+
+        then: 'quien la pidió recibe el resultado'
+        1 * loader.apply("juan@ejemplo.com") >> pending.asMono()
+        inFlight.get().getEmail() == "juan@ejemplo.com"
+
+        when: 'se vuelve a buscar el mismo email'
+        userCache.get("juan@ejemplo.com", loader).block()
+
+        then: 'el resultado anterior no quedó en la caché'
+        1 * loader.apply("juan@ejemplo.com") >> Mono.just(user("juan@ejemplo.com"))
+    }
+
+    def "debería compartir una sola carga entre búsquedas concurrentes del mismo email"() {
+        given: 'una carga que aún no responde'
+        def pending = Sinks.<User>one()
+        Function<String, Mono<User>> loader = Mock()
+
+        when: 'llegan dos búsquedas antes de que termine la primera'
+        def first = userCache.get("juan@ejemplo.com", loader).toFuture()
+        def second = userCache.get("juan@ejemplo.com", loader).toFuture()
+        pending.tryEmitValue(user("juan@ejemplo.com"))
+
+        then: 'el loader se ejecuta una vez y cada una recibe su propia copia'
+        1 * loader.apply("juan@ejemplo.com") >> pending.asMono()
+        first.get().getEmail() == "juan@ejemplo.com"
+        second.get().getEmail() == "juan@ejemplo.com"
+        !first.get().is(second.get())
+        registry.get("bci.singleflight.coalesced").tag("operation", "user.lookup").counter().count() == 1
+
+        when: 'la carga terminó'
+        userCache.invalidate("juan@ejemplo.com")
+        userCache.get("juan@ejemplo.com", loader).block()
+
+        then: 'una búsqueda posterior vuelve a cargar'
+        1 * loader.apply("juan@ejemplo.com") >> Mono.just(user("juan@ejemplo.com"))
+    }
+}
@@ -0,0 +1,112 @@
+package com.bci.reto.service
+
+import com.bci.entity.Phone
+import com.bci.entity.User
+import com.bci.mapper.UserMapper
+import com.bci.repository.UserRepository
+import com.bci.service.impl.UserExportServiceImpl
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.PropertyNamingStrategies
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.DefaultDataBufferFactory
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder
+import reactor.core.publisher.Mono
+import reactor.test.StepVerifier
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+class UserExportServiceSpec extends Specification {
+    UserRepository userRepository
+    SimpleMeterRegistry registry
+    ObjectMapper objectMapper
+    UserExportServiceImpl exportService
+
+    def setup() {
+        userRepository = Mock()
+        registry = new SimpleMeterRegistry()
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build()
+        exportService = new UserExportServiceImpl(userRepository, new UserMapper(), objectMapper, registry, 2, Duration.ofMinutes(1))
+    }
+
+    private static User user(UUID id, String email) {
+        def phone = new Phone()
+        phone.setNumber("123456789")
+        phone.setCitycode(1)
+        phone.setCountrycode("57")
+
+        def user = new User()
+        user.setId(id)
+        user.setName("Juan Pérez")
+        user.setEmail(email)
+        user.setPassword("contraseñaEncriptada")
+        user.setToken("jwt.token")
+        user.setIsActive(true)
+        user.setPhones([phone])
+        user
+    }
+
+    private static String text(DataBuffer buffer) {
+        buffer.toString(StandardCharsets.UTF_8)
+    }
+
+    def "debería recorrer los usuarios por páginas con keyset sobre el id"() {
+        given: 'tres usuarios en páginas de dos'
+        def ids = (1..3).collect { new UUID(0L, it as long) }
+        def first = user(ids[0], "uno@ejemplo.com")
+        def second = user(ids[1], "dos@ejemplo.com")
+        def third = user(ids[2], "tres@ejemplo.com")
+
+        when: 'se exporta'
+        def lines = exportService.exportNdjson(DefaultDataBufferFactory.sharedInstance)
+                .map { text(it) }
+                .collectList()
+                .block()
+
+        then: 'cada página continúa desde el último id de la anterior'
+        1 * userRepository.findPageWithPhones(null, 2) >> Mono.just([first, second])
+        1 * userRepository.findPageWithPhones(ids[1], 2) >> Mono.just([third])
+        0 * userRepository.findPageWithPhones(ids[2], _)
+
+        and: 'se escribe un usuario por línea, con teléfonos y sin datos sensibles'
+        lines.size() == 3
+        lines.every { it.endsWith("\n") }
+        def parsed = lines.collect { objectMapper.readValue(it, Map) }
+        parsed*.email == ["uno@ejemplo.com", "dos@ejemplo.com", "tres@ejemplo.com"]
+        parsed[0].phones[0].number == "123456789"
+        parsed.every { !it.containsKey("password") && !it.containsKey("token") }
+
+        and: 'se registran filas y bytes exportados'
+        registry.get("bci.user.export.rows").counter().count() == 3
+        registry.get("bci.user.export.bytes").counter().count() == lines.sum { it.getBytes(StandardCharsets.UTF_8).length }
+    }
+
+    def "debería pedir la página siguiente solo cuando el cliente la demanda"() {
+        given: 'páginas completas indefinidamente'
+        def counter = 0L
+        userRepository.findPageWithPhones(_, 2) >> {
+            Mono.just([user(new UUID(0L, ++counter), "a${counter}@ejemplo.com"), user(new UUID(0L, ++counter), "b${counter}@ejemplo.com")])
+        }
+
+        expect: 'con demanda de una línea se leen como máximo la página actual y la siguiente'
+        StepVerifier.create(exportService.exportNdjson(DefaultDataBufferFactory.sharedInstance), 1)
+                .expectNextCount(1)
+                .thenAwait(Duration.ofMillis(100))
+                .then { assert counter <= 4 }
+                .thenCancel()
+                .verify(Duration.ofSeconds(5))
+    }
+
+    def "debería terminar sin líneas cuando no hay usuarios"() {
+        when: 'se exporta una tabla vacía'
+        def lines = exportService.exportNdjson(DefaultDataBufferFactory.sharedInstance).collectList().block()
+
+        then: 'no se escribe nada'
+        1 * userRepository.findPageWithPhones(null, 2) >> Mono.just([])
+        lines.isEmpty()
+    }
+}
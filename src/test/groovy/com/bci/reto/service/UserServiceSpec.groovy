@@ -4,38 +4,63 @@ import com.bci.entity.Phone
 import com.bci.entity.User
 import com.bci.exception.UserExistsException
 import com.bci.mapper.UserMapper
+import com.bci.metrics.StageMetrics
 import com.bci.model.PhoneRequestDTO
+import com.bci.model.ResponseFields
 import com.bci.model.PhoneResponseDTO
 import com.bci.model.UserResponseDTO
 import com.bci.model.UserSignUpRequestDTO
 import com.bci.repository.PhoneRepository
 import com.bci.repository.UserRepository
 import com.bci.service.JwtService
+import com.bci.service.PasswordHashingService
+import com.bci.service.RateLimitService
+import com.bci.service.RegisteredEmailFilter
+import com.bci.service.UserCache
 import com.bci.service.UserService
+import com.bci.service.impl.IdempotencyServiceImpl
 import com.bci.service.impl.UserServiceImpl
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.dao.DuplicateKeyException
 import org.springframework.http.HttpStatus
-import org.springframework.security.crypto.password.PasswordEncoder
+import org.springframework.transaction.reactive.TransactionalOperator
 import reactor.core.publisher.Mono
 import reactor.core.publisher.Flux
 import spock.lang.Specification
 
+import java.time.Duration
 import java.time.LocalDateTime
 
 class UserServiceSpec extends Specification {
     UserRepository userRepository
     PhoneRepository phoneRepository
-    PasswordEncoder passwordEncoder
+    PasswordHashingService passwordHashingService
     JwtService jwtService
     UserMapper userMapper
+    TransactionalOperator transactionalOperator
+    UserCache userCache
+    RegisteredEmailFilter registeredEmailFilter
+    SimpleMeterRegistry registry
+    StageMetrics stageMetrics
+    RateLimitService rateLimitService
     UserService userService
 
     def setup() {
+        registry = new SimpleMeterRegistry()
+        stageMetrics = new StageMetrics(registry)
+        rateLimitService = Mock()
         userRepository = Mock()
         phoneRepository = Mock()
-        passwordEncoder = Mock()
+        passwordHashingService = Mock()
         jwtService = Mock()
         userMapper = Mock()
-        userService = new UserServiceImpl(userRepository, phoneRepository, passwordEncoder, jwtService, userMapper)
+        transactionalOperator = Stub() {
+            transactional(_ as Mono) >> { args -> args[0] }
+        }
+        userCache = Mock()
+        registeredEmailFilter = Mock()
+        userService = new UserServiceImpl(userRepository, phoneRepository, passwordHashingService, jwtService, userMapper, transactionalOperator, userCache, registeredEmailFilter, stageMetrics, rateLimitService,
+                new IdempotencyServiceImpl(registry, true, 100, Duration.ofMinutes(10), 900000L))
     }
 
     def "debería registrar un nuevo usuario exitosamente con teléfonos"() {
@@ -86,14 +111,17 @@ class UserServiceSpec extends Specification {
         def resultado = userService.signUp(request).block()
 
         then: 'se debe procesar correctamente la solicitud'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.empty()
+        0 * userRepository.findByEmail(_)
         1 * userMapper.toEntity(request) >> user
-        1 * passwordEncoder.encode(request.getPassword()) >> "contraseñaEncriptada"
-        1 * userRepository.save(_) >> Mono.just(savedUser)
-        1 * jwtService.generateToken(_) >> "jwt.token"
-        1 * userRepository.save(_) >> Mono.just(userWithToken)
+        1 * passwordHashingService.encode(request.getPassword()) >> Mono.just("contraseñaEncriptada")
+        1 * jwtService.generateToken({ it.getId() != null }) >> "jwt.token"
+        1 * userRepository.insert({ it.getToken() == "jwt.token" && it.getPassword() == "contraseñaEncriptada" }) >> Mono.just(userWithToken)
+        0 * userRepository.save(_)
         1 * userMapper.phoneRequestDTOsToEntities(_) >> [phone]
-        1 * phoneRepository.saveAll(_) >> Flux.just(phone)
+        1 * phoneRepository.insertAll({ it*.getUserId() == [user.getId()] }) >> Flux.just(phone)
+        1 * userCache.invalidate(_)
+        1 * registeredEmailFilter.add(_)
+        0 * userRepository.existsByEmail(_)
         1 * userMapper.toDTO(_) >> responseDTO
 
         resultado.getStatusCode() == HttpStatus.CREATED
@@ -141,14 +169,14 @@ class UserServiceSpec extends Specification {
         def resultado = userService.signUp(request).block()
 
         then: 'se debe procesar correctamente sin teléfonos'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.empty()
+        0 * userRepository.findByEmail(_)
         1 * userMapper.toEntity(request) >> user
-        1 * passwordEncoder.encode(request.getPassword()) >> "contraseñaEncriptada"
-        1 * userRepository.save(_) >> Mono.just(savedUser)
-        1 * jwtService.generateToken(_) >> "jwt.token"
-        1 * userRepository.save(_) >> Mono.just(userWithToken)
+        1 * passwordHashingService.encode(request.getPassword()) >> Mono.just("contraseñaEncriptada")
+        1 * jwtService.generateToken({ it.getId() != null }) >> "jwt.token"
+        1 * userRepository.insert({ it.getToken() == "jwt.token" && it.getPassword() == "contraseñaEncriptada" }) >> Mono.just(userWithToken)
+        0 * userRepository.save(_)
         1 * userMapper.toDTO(_) >> responseDTO
-        0 * phoneRepository.saveAll(_)
+        0 * phoneRepository.insertAll(_)
         0 * userMapper.phoneRequestDTOsToEntities(_)
 
         resultado.getStatusCode() == HttpStatus.CREATED
@@ -196,37 +224,58 @@ class UserServiceSpec extends Specification {
         def resultado = userService.signUp(request).block()
 
         then: 'se debe procesar correctamente sin teléfonos'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.empty()
+        0 * userRepository.findByEmail(_)
         1 * userMapper.toEntity(request) >> user
-        1 * passwordEncoder.encode(request.getPassword()) >> "contraseñaEncriptada"
-        1 * userRepository.save(_) >> Mono.just(savedUser)
-        1 * jwtService.generateToken(_) >> "jwt.token"
-        1 * userRepository.save(_) >> Mono.just(userWithToken)
+        1 * passwordHashingService.encode(request.getPassword()) >> Mono.just("contraseñaEncriptada")
+        1 * jwtService.generateToken({ it.getId() != null }) >> "jwt.token"
+        1 * userRepository.insert({ it.getToken() == "jwt.token" && it.getPassword() == "contraseñaEncriptada" }) >> Mono.just(userWithToken)
+        0 * userRepository.save(_)
         1 * userMapper.toDTO(_) >> responseDTO
-        0 * phoneRepository.saveAll(_)
+        0 * phoneRepository.insertAll(_)
 
         resultado.getStatusCode() == HttpStatus.CREATED
         resultado.getBody() == responseDTO
     }
 
-    def "debería devolver conflicto cuando el email ya existe"() {
+    def "debería devolver conflicto cuando el insert viola la restricción de email único"() {
         given: 'una solicitud con email ya registrado'
         def request = new UserSignUpRequestDTO("Juan Pérez", "existente@ejemplo.com", "Password1a2", [])
-        def usuarioExistente = new User()
-        usuarioExistente.setEmail(request.getEmail())
+        def user = new User()
+        user.setEmail(request.getEmail())
 
         when: 'se intenta registrar el usuario'
         def resultado = userService.signUp(request).block()
 
-        then: 'debe devolver una respuesta de conflicto'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.just(usuarioExistente)
-        0 * userMapper.toEntity(_)
-        0 * passwordEncoder.encode(_)
-        0 * userRepository.save(_)
+        then: 'el duplicado se detecta en el insert, sin consulta previa'
+        0 * userRepository.findByEmail(_)
+        1 * userMapper.toEntity(request) >> user
+        1 * passwordHashingService.encode(request.getPassword()) >> Mono.just("contraseñaEncriptada")
+        1 * userRepository.insert(_) >> Mono.error(new DuplicateKeyException("Unique index or primary key violation: UK_USERS_EMAIL"))
+        0 * phoneRepository.insertAll(_)
+        0 * userCache.invalidate(_)
+
+        resultado.getStatusCode() == HttpStatus.CONFLICT
+        resultado.getBody().getMensaje() == "Email already registered"
+    }
+
+    def "debería rechazar un email registrado antes de calcular el hash cuando el filtro lo indica"() {
+        given: 'una solicitud cuyo email el filtro de Bloom reporta como posible'
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+        def user = new User()
+        user.setEmail(request.getEmail())
+
+        when: 'se intenta registrar el usuario'
+        def resultado = userService.signUp(request).block()
+
+        then: 'se confirma en la base de datos y no se ejecuta BCrypt'
+        1 * userMapper.toEntity(request) >> user
+        1 * registeredEmailFilter.mightContain("juan@ejemplo.com") >> true
+        1 * userRepository.existsByEmail("juan@ejemplo.com") >> Mono.just(true)
+        0 * passwordHashingService.encode(_)
+        0 * userRepository.insert(_)
 
         resultado.getStatusCode() == HttpStatus.CONFLICT
-        resultado.getBody().getError()[0].getDetail().contains("Email already registered")
-        resultado.getBody().getError()[0].getCodigo() == HttpStatus.CONFLICT.value()
+        resultado.getBody().getMensaje() == "Email already registered"
     }
 
     def "debería manejar errores inesperados durante el registro"() {
@@ -237,11 +286,113 @@ class UserServiceSpec extends Specification {
         def resultado = userService.signUp(request).block()
 
         then: 'debe devolver una respuesta de error'
-        1 * userRepository.findByEmail(request.getEmail()) >> Mono.empty()
         1 * userMapper.toEntity(request) >> { throw new RuntimeException("Error inesperado") }
 
         resultado.getStatusCode() == HttpStatus.BAD_REQUEST
-        resultado.getBody().getError()[0].getDetail() == "Error inesperado"
-        resultado.getBody().getError()[0].getCodigo() == HttpStatus.BAD_REQUEST.value()
+        resultado.getBody().getMensaje() == "Error inesperado"
+    }
+
+    def "debería repetir la respuesta original ante un reintento con la misma Idempotency-Key"() {
+        given: 'un primer registro que termina en conflicto'
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+        def user = new User()
+        user.setEmail(request.getEmail())
+
+        when: 'el cliente reintenta con la misma clave'
+        def primero = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+        def reintento = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+
+        then: 'el registro se procesa una sola vez'
+        1 * userMapper.toEntity(request) >> user
+        1 * registeredEmailFilter.mightContain("juan@ejemplo.com") >> true
+        1 * userRepository.existsByEmail("juan@ejemplo.com") >> Mono.just(true)
+
+        primero.getStatusCode() == HttpStatus.CONFLICT
+        reintento.getStatusCode() == HttpStatus.CONFLICT
+        reintento.getBody() == primero.getBody()
+        reintento.getHeaders().getFirst("Idempotent-Replayed") == "true"
+        registry.get("bci.idempotency.requests").tag("result", "replayed").counter().count() == 1
+    }
+
+    def "no debería repetir respuestas más allá de la vigencia del access token"() {
+        given: 'un TTL de idempotencia configurado más largo que la vida del token'
+        def service = new UserServiceImpl(userRepository, phoneRepository, passwordHashingService, jwtService, userMapper, transactionalOperator, userCache, registeredEmailFilter, stageMetrics, rateLimitService,
+                new IdempotencyServiceImpl(new SimpleMeterRegistry(), true, 100, Duration.ofHours(24), 50L))
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+
+        when: 'el reintento llega después de que el token habría vencido'
+        service.signUp(request, "clave-1", ResponseFields.all()).block()
+        Thread.sleep(200)
+        def reintento = service.signUp(request, "clave-1", ResponseFields.all()).block()
+
+        then: 'el registro se vuelve a procesar en vez de repetir la respuesta guardada'
+        2 * userMapper.toEntity(request) >> { new User(email: request.getEmail()) }
+        2 * registeredEmailFilter.mightContain("juan@ejemplo.com") >> true
+        2 * userRepository.existsByEmail("juan@ejemplo.com") >> Mono.just(true)
+        reintento.getHeaders().getFirst("Idempotent-Replayed") == null
+    }
+
+    def "debería rechazar una Idempotency-Key reutilizada con otra solicitud"() {
+        given: 'una clave ya usada para otro registro'
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+        def otra = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password3b4", [])
+        userMapper.toEntity(request) >> { new User(email: request.getEmail()) }
+        registeredEmailFilter.mightContain(_) >> true
+        userRepository.existsByEmail(_) >> Mono.just(true)
+        userService.signUp(request, "clave-1", ResponseFields.all()).block()
+
+        when: 'se reutiliza con un cuerpo distinto'
+        def resultado = userService.signUp(otra, "clave-1", ResponseFields.all()).block()
+
+        then: 'se responde 422 sin procesar el registro'
+        0 * userMapper.toEntity(otra)
+        resultado.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY
+        resultado.getBody().getMensaje() == "Idempotency-Key already used with a different request"
+    }
+
+    def "debería volver a ejecutar el registro si la primera respuesta no es definitiva"() {
+        given: 'un primer intento rechazado por el límite de solicitudes'
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+
+        when: 'el cliente reintenta con la misma clave'
+        def primero = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+        def reintento = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+
+        then: 'el reintento se procesa de nuevo'
+        2 * rateLimitService.tryAcquireForEmail("juan@ejemplo.com") >>> [5L, 5L]
+        primero.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        reintento.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        reintento.getHeaders().getFirst("Idempotent-Replayed") == null
+    }
+
+    def "no debería repetir un 400 causado por una falla inesperada"() {
+        given: 'un primer intento que falla por un error transitorio'
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+
+        when: 'el cliente reintenta con la misma clave'
+        def primero = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+        def reintento = userService.signUp(request, "clave-1", ResponseFields.all()).block()
+
+        then: 'el reintento se procesa de nuevo en vez de recibir el error guardado'
+        2 * userMapper.toEntity(request) >> { throw new RuntimeException("falla transitoria") }
+        primero.getStatusCode() == HttpStatus.BAD_REQUEST
+        reintento.getStatusCode() == HttpStatus.BAD_REQUEST
+        reintento.getHeaders().getFirst("Idempotent-Replayed") == null
+    }
+
+    def "debería rechazar una Idempotency-Key vacía o demasiado larga"() {
+        given:
+        def request = new UserSignUpRequestDTO("Juan Pérez", "juan@ejemplo.com", "Password1a2", [])
+
+        when:
+        def resultado = userService.signUp(request, clave, ResponseFields.all()).block()
+
+        then:
+        0 * userMapper.toEntity(_)
+        resultado.getStatusCode() == HttpStatus.BAD_REQUEST
+        resultado.getBody().getMensaje() == "Invalid Idempotency-Key header"
+
+        where:
+        clave << [" ", "k" * 256]
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.bci.reto.service
+
+import com.bci.entity.User
+import com.bci.service.impl.VerifiedCredentialCacheImpl
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class VerifiedCredentialCacheSpec extends Specification {
+    SimpleMeterRegistry registry
+    VerifiedCredentialCacheImpl cache
+
+    def setup() {
+        registry = new SimpleMeterRegistry()
+        cache = new VerifiedCredentialCacheImpl(registry, true, 100, Duration.ofMinutes(1))
+    }
+
+    private static User user(String password = '{bcrypt}$2a$10$hash', boolean active = true) {
+        def user = new User()
+        user.setEmail("juan@ejemplo.com")
+        user.setPassword(password)
+        user.setIsActive(active)
+        user
+    }
+
+    def "debería reconocer una contraseña verificada y contar el tiempo de BCrypt ahorrado"() {
+        given:
+        Timer.builder("bci.password.hashing.duration").tag("operation", "matches").register(registry)
+                .record(200, TimeUnit.MILLISECONDS)
+        cache.recordVerified(user(), "Password1a2")
+
+        expect:
+        cache.isVerified(user(), "Password1a2")
+        !cache.isVerified(user(), "Otra1clave2")
+        Math.abs(registry.get("bci.credential.cache.saved").counter().count() - 0.2d) < 1e-9d
+    }
+
+    def "no debería valer cuando el hash cambió o el usuario está desactivado"() {
+        given:
+        cache.recordVerified(user(), "Password1a2")
+
+        expect:
+        !cache.isVerified(current, "Password1a2")
+
+        where:
+        current << [user('{bcrypt}$2a$12$otro'), user('{bcrypt}$2a$10$hash', false)]
+    }
+
+    def "no debería valer después de invalidar el email"() {
+        given:
+        cache.recordVerified(user(), "Password1a2")
+
+        when:
+        cache.invalidate("juan@ejemplo.com")
+
+        then:
+        !cache.isVerified(user(), "Password1a2")
+    }
+
+    def "no debería recordar nada cuando está desactivada"() {
+        given:
+        def disabled = new VerifiedCredentialCacheImpl(new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(1))
+
+        when:
+        disabled.recordVerified(user(), "Password1a2")
+
+        then:
+        !disabled.isVerified(user(), "Password1a2")
+    }
+}